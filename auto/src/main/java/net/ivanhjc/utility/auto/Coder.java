@@ -6,14 +6,12 @@ import net.ivanhjc.utility.data.SplitRegex;
 import net.ivanhjc.utility.data.StringUtils;
 import net.ivanhjc.utility.file.FileUtils;
 import net.ivanhjc.utility.file.POIUtils;
+import net.ivanhjc.utility.file.SheetReader;
 import net.ivanhjc.utility.reflection.ReflectionUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.commons.text.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -1872,57 +1870,67 @@ public class Coder {
         if (file.contains(".xlsx")) {
             String filename = org.apache.commons.lang3.StringUtils.substringBeforeLast(file, ".");
             String sheetName = org.apache.commons.lang3.StringUtils.substringAfterLast(file, ".");
-            Sheet sheet = new XSSFWorkbook(filename).getSheet(sheetName);
-            if (sheet == null) {
-                throw new IllegalArgumentException("Unspecified sheet for spreadsheet. Please specify sheet by appending sheet name to file name like this \"example.xlsx.Sheet1\"");
+            SheetReader reader;
+            try {
+                reader = POIUtils.read(filename, sheetName);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unspecified sheet for spreadsheet. Please specify sheet by appending sheet name to file name like this \"example.xlsx.Sheet1\"", e);
             }
 
-            row:
-            for (int i = 1; i < sheet.getLastRowNum(); i++) {
-                Row row = sheet.getRow(i);
-                if (row == null) {
-                    skippedRows++;
-                    result.append("Skipped row ").append(i).append(": Empty row\n");
-                    continue;
-                }
-                StringBuilder rowBuilder = new StringBuilder();
-                int lastCellNum = row.getLastCellNum();
-                for (int j = 0; j < fieldsToImport.length; j++) {
-                    String field = fieldsToImport[j];
-                    if (field == null) {
+            try {
+                int nextRowNum = 1;
+                row:
+                while (reader.hasNext()) {
+                    SheetReader.SheetRow row = reader.next();
+                    if (row.getRowNum() < nextRowNum) {
                         continue;
                     }
-
-                    String value;
-                    if (j < lastCellNum) {
-                        value = POIUtils.getCellValue(row.getCell(j));
-                    } else {
-                        value = org.apache.commons.lang3.StringUtils.substringBetween(fields[j], "[", "]");
+                    for (; nextRowNum < row.getRowNum(); nextRowNum++) {
+                        skippedRows++;
+                        result.append("Skipped row ").append(nextRowNum).append(": Empty row\n");
                     }
+                    int i = nextRowNum++;
+                    StringBuilder rowBuilder = new StringBuilder();
+                    int lastCellNum = row.getLastCellNum();
+                    for (int j = 0; j < fieldsToImport.length; j++) {
+                        String field = fieldsToImport[j];
+                        if (field == null) {
+                            continue;
+                        }
+
+                        String value;
+                        if (j < lastCellNum) {
+                            value = row.getCellValue(j);
+                        } else {
+                            value = org.apache.commons.lang3.StringUtils.substringBetween(fields[j], "[", "]");
+                        }
 
-                    if (value == null) {
-                        value = "null";
-                    } else if (!NumberUtils.isParsable(value)) {
-                        Map<String, Object> map = fieldMap.get(j);
-                        if (map != null) {
-                            Object val = map.get(value);
-                            if (val == null) {
-                                skippedRows++;
-                                result.append("Skipped row ").append(i).append(": No mapping found for field ").append("\"").append(field).append("\" value \"").append(value).append("\"\n");
-                                continue row;
-                            } else if (val instanceof String) {
-                                value = "'" + val + "'";
-                            } else {
-                                value = val.toString();
+                        if (value == null) {
+                            value = "null";
+                        } else if (!NumberUtils.isParsable(value)) {
+                            Map<String, Object> map = fieldMap.get(j);
+                            if (map != null) {
+                                Object val = map.get(value);
+                                if (val == null) {
+                                    skippedRows++;
+                                    result.append("Skipped row ").append(i).append(": No mapping found for field ").append("\"").append(field).append("\" value \"").append(value).append("\"\n");
+                                    continue row;
+                                } else if (val instanceof String) {
+                                    value = "'" + val + "'";
+                                } else {
+                                    value = val.toString();
+                                }
+                            } else if (!value.equals("now()")) {
+                                value = "'" + value + "'";
                             }
-                        } else if (!value.equals("now()")) {
-                            value = "'" + value + "'";
                         }
+                        rowBuilder.append(value).append(",");
                     }
-                    rowBuilder.append(value).append(",");
+                    sqlBuilder.append("(").append(rowBuilder.deleteCharAt(rowBuilder.length() - 1)).append("),\n");
+                    importedRows++;
                 }
-                sqlBuilder.append("(").append(rowBuilder.deleteCharAt(rowBuilder.length() - 1)).append("),\n");
-                importedRows++;
+            } finally {
+                reader.close();
             }
             sqlBuilder.delete(sqlBuilder.length() - 2, sqlBuilder.length()).append(";");
         } else {
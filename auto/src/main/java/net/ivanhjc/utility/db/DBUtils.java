@@ -283,9 +283,9 @@ public class DBUtils {
      * @return the converted variable name
      */
     public static String toVarName(String colName, String prefix) {
-        return StringUtils.uncapitalize(StringUtils.snakeToCamel(prefix == null || prefix.length() >= colName.length()
-                || !prefix.equalsIgnoreCase(colName.substring(0, prefix.length())) ? colName :
-                colName.substring(prefix.length())));
+        return StringUtils.snakeToCamel(prefix == null || prefix.length() >= colName.length()
+                || !colName.regionMatches(true, 0, prefix, 0, prefix.length()) ? colName :
+                colName.substring(prefix.length()), false);
     }
 
     /**
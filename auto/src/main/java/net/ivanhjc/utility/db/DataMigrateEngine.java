@@ -7,6 +7,7 @@ import net.ivanhjc.utility.db.model.enums.FileType;
 import net.ivanhjc.utility.db.model.params.TableInfo;
 import net.ivanhjc.utility.db.model.params.ImportFromFileToDatabasesConfiguration;
 import net.ivanhjc.utility.file.POIUtils;
+import net.ivanhjc.utility.file.SheetReader;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.logging.log4j.LogManager;
@@ -68,8 +69,17 @@ public class DataMigrateEngine {
 
     private void importFromSpreadsheetToDatabase(ImportFromFileToDatabasesConfiguration configuration) throws IOException,
             SQLException {
-        POIUtils poiUtils = new POIUtils().open(StringUtils.substringBeforeLast(configuration.getSource(), "."),
-                StringUtils.substringAfterLast(configuration.getSource(), "."));
+        String workbook = StringUtils.substringBeforeLast(configuration.getSource(), ".");
+        String sheetName = StringUtils.substringAfterLast(configuration.getSource(), ".");
+        if (configuration.getBatchSize() != null) {
+            try (SheetReader reader = POIUtils.read(workbook, sheetName)) {
+                importInBatches(reader, configuration);
+            }
+            LOG.info("Import done!");
+            return;
+        }
+
+        POIUtils poiUtils = new POIUtils().open(workbook, sheetName);
         Sheet sheet = poiUtils.getSheet();
         List<String> fields = configuration.getFields();
         if (fields == null) {
@@ -98,64 +108,163 @@ public class DataMigrateEngine {
         LOG.info("Import done!");
     }
 
-    private String generateImportSQL(Sheet sheet, List<String> fields, int startRow, TableInfo table)
+    /**
+     * Reads the rows of the sheet one by one with a streaming reader and writes them to all targets as batches of a
+     * parameterized INSERT statement, committing every {@link ImportFromFileToDatabasesConfiguration#getBatchesPerCommit()}
+     * batches. Neither the workbook nor the rows are held in memory, and the throughput of each target is reported when
+     * the import finishes.
+     */
+    private void importInBatches(SheetReader reader, ImportFromFileToDatabasesConfiguration configuration)
             throws SQLException {
-        Connection connection = DBUtils.getConnection(table.getConnection());
-        Map<Integer, Map<String, Object>> fieldValueMap = new HashMap<>();
+        SheetReader.SheetRow row = reader.hasNext() ? reader.next() : null;
+        List<String> fields = configuration.getFields();
+        if (fields == null) {
+            fields = new ArrayList<>();
+            if (row != null && row.getRowNum() == 0) {
+                for (int i = 0; row.getCellValue(i) != null; i++) {
+                    fields.add(row.getCellValue(i));
+                }
+            }
+        }
+
+        TableInfo[] targets = configuration.getTargets();
         List<String> fieldForSql = new ArrayList<>();
-        StringBuilder fieldsBuilder = new StringBuilder();
-        for (int i = 0; i < fields.size(); i++) {
-            String str = fields.get(i);
-            if (str.isEmpty()) {
-                fieldForSql.add(null);
-                continue;
+        Map<Integer, Map<String, Object>> fieldValueMap = new HashMap<>();
+        String columns = parseFields(fields, targets[0], fieldForSql, fieldValueMap);
+        int paramCount = (int) fieldForSql.stream().filter(Objects::nonNull).count();
+        int batchSize = configuration.getBatchSize();
+        int batchesPerCommit = configuration.getBatchesPerCommit() == null ? 1 : configuration.getBatchesPerCommit();
+
+        if (batchSize <= 0 || batchesPerCommit <= 0) {
+            throw new IllegalArgumentException("batchSize and batchesPerCommit must be greater than 0");
+        }
+        // Targets on the same connection share its transaction, which is committed and rolled back as a whole
+        Map<Connection, Transaction> transactions = new LinkedHashMap<>();
+        List<BatchWriter> writers = new ArrayList<>();
+        try {
+            for (TableInfo table : targets) {
+                Connection connection = DBUtils.getConnection(table.getConnection());
+                Transaction transaction = transactions.get(connection);
+                if (transaction == null) {
+                    transaction = new Transaction(connection, batchesPerCommit);
+                    transactions.put(connection, transaction);
+                }
+                writers.add(new BatchWriter(table, transaction, columns, paramCount, batchSize));
             }
 
-            if (str.contains(".")) {
-                String field1 = StringUtils.substringBefore(str, "[");
-                String table2 = StringUtils.substringBetween(str, "[", ".");
-                String field2;
-                StringBuilder whereClause = new StringBuilder();
-                if (str.contains("]->")) {
-                    field2 = str.substring(str.indexOf(".") + 1, str.lastIndexOf("["));
-                    String values = str.substring(str.lastIndexOf("[") + 1, str.indexOf("]"));
-                    String sqlValues = StringUtils.encloseSubstrings(values, ",", SplitRegex.DROPPED, "'", ",");
-                    whereClause.append(" WHERE ").append(field2).append(" IN (").append(sqlValues).append(")");
-                } else {
-                    field2 = StringUtils.substringBetween(str, ".", "-");
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            int skippedRows = 0, importedRows = 0;
+            int nextRowNum = configuration.getStartRow();
+            for (; row != null; row = reader.hasNext() ? reader.next() : null) {
+                if (row.getRowNum() < nextRowNum) {
+                    continue;
                 }
-                String field3 = StringUtils.substringBetween(str, ">", "]");
-                String sql = "SELECT " + field2 + ", " + field3 + " FROM " + table2 + whereClause;
-                try (PreparedStatement ps = connection.prepareStatement(sql)) {
-                    ResultSet rs = ps.executeQuery();
-                    Map<String, Object> map = new HashMap<>();
-                    while (rs.next()) {
-                        map.put(rs.getString(field2), rs.getObject(field3));
-                    }
-                    fieldValueMap.put(i, map);
-                    fieldForSql.add(field1);
+                // Empty rows are not returned by the reader
+                for (; nextRowNum < row.getRowNum(); nextRowNum++) {
+                    skippedRows++;
+                    LOG.debug("Skipped row {}: Empty row", nextRowNum);
                 }
-            } else if (str.contains(",")) {
-                String[] pairs = StringUtils.substringBetween(str, "[", "]").split(",");
-                Map<String, Object> map1 = new HashMap<>();
-                for (String s : pairs) {
-                    String[] pair = s.split(":");
-                    map1.put(pair[1], Integer.valueOf(pair[0]));
+                nextRowNum++;
+
+                Object[] params = getParameters(row, fields, fieldForSql, fieldValueMap, paramCount, now);
+                if (params == null) {
+                    skippedRows++;
+                    continue;
                 }
-                fieldValueMap.put(i, map1);
-                fieldForSql.add(StringUtils.substringBefore(str, "["));
-            } else if (str.contains("[")) {
-                fieldForSql.add(StringUtils.substringBefore(str, "["));
+                for (BatchWriter writer : writers) {
+                    writer.write(params);
+                }
+                importedRows++;
+            }
+            for (BatchWriter writer : writers) {
+                writer.finish();
+            }
+            for (Transaction transaction : transactions.values()) {
+                transaction.finish();
+            }
+            LOG.info("Report:\nRows imported: {}\nRows skipped: {}", importedRows, skippedRows);
+        } finally {
+            close(writers, transactions.values());
+        }
+    }
+
+    /**
+     * Close every statement, then roll back every unfinished transaction and restore its connection, going on past
+     * failures
+     *
+     * @throws SQLException the first failure, with the others suppressed
+     */
+    private static void close(List<BatchWriter> writers, Collection<Transaction> transactions) throws SQLException {
+        List<AutoCloseable> resources = new ArrayList<>(writers);
+        resources.addAll(transactions);
+        SQLException failure = null;
+        for (AutoCloseable resource : resources) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                if (failure == null) {
+                    failure = e instanceof SQLException ? (SQLException) e : new SQLException(e);
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Converts a row of the sheet to the parameters of the INSERT statement
+     *
+     * @return the parameters in the order of the non-null fields in fieldForSql, or null if the row should be skipped
+     */
+    private Object[] getParameters(SheetReader.SheetRow row, List<String> fields, List<String> fieldForSql,
+                                   Map<Integer, Map<String, Object>> fieldValueMap, int paramCount, Timestamp now) {
+        Object[] params = new Object[paramCount];
+        int k = 0;
+        int lastCellNum = row.getLastCellNum();
+        for (int j = 0; j < fieldForSql.size(); j++) {
+            String field = fieldForSql.get(j);
+            if (field == null) {
+                continue;
+            }
+
+            String value;
+            if (j < lastCellNum) {
+                value = row.getCellValue(j);
             } else {
-                fieldForSql.add(str);
+                value = StringUtils.substringBetween(fields.get(j), "[", "]");
             }
-            fieldsBuilder.append(fieldForSql.get(i)).append(",");
+
+            Object param = value;
+            if (value != null && !NumberUtils.isParsable(value)) {
+                Map<String, Object> map = fieldValueMap.get(j);
+                if (map != null) {
+                    param = map.get(value);
+                    if (param == null) {
+                        LOG.debug("Skipped row {}: No mapping found for field \"{}\" value \"{}\"", row.getRowNum(), field,
+                                value);
+                        return null;
+                    }
+                } else if (value.equals("now()")) {
+                    param = now;
+                }
+            }
+            params[k++] = param;
         }
-        fieldsBuilder.deleteCharAt(fieldsBuilder.length() - 1);
+        return params;
+    }
+
+    private String generateImportSQL(Sheet sheet, List<String> fields, int startRow, TableInfo table)
+            throws SQLException {
+        Map<Integer, Map<String, Object>> fieldValueMap = new HashMap<>();
+        List<String> fieldForSql = new ArrayList<>();
+        String columns = parseFields(fields, table, fieldForSql, fieldValueMap);
 
         StringBuilder report = new StringBuilder("Report:\n");
         StringBuilder sqlBuilder = new StringBuilder("INSERT INTO ").append(table.getTable()).append(" (")
-                .append(fieldsBuilder).append(") VALUES \n");
+                .append(columns).append(") VALUES \n");
         int skippedRows = 0, importedRows = 0;
         row:
         for (int i = startRow; i <= sheet.getLastRowNum(); i++) {
@@ -210,4 +319,185 @@ public class DataMigrateEngine {
         LOG.info(report.toString());
         return sqlBuilder.toString();
     }
+
+    /**
+     * Parses the fields to import to, see {@link ImportFromFileToDatabasesConfiguration#getFields()} for the syntax.
+     *
+     * @param fields        the fields given by the configuration
+     * @param table         the table used to look up the values of reference fields
+     * @param fieldForSql   receives the plain field name of each field, or null for the columns to skip
+     * @param fieldValueMap receives the value mappings of the fields that need converting, keyed by field index
+     * @return the comma-separated field names for the INSERT statement
+     */
+    private String parseFields(List<String> fields, TableInfo table, List<String> fieldForSql,
+                               Map<Integer, Map<String, Object>> fieldValueMap) throws SQLException {
+        Connection connection = DBUtils.getConnection(table.getConnection());
+        StringBuilder fieldsBuilder = new StringBuilder();
+        for (int i = 0; i < fields.size(); i++) {
+            String str = fields.get(i);
+            if (str.isEmpty()) {
+                fieldForSql.add(null);
+                continue;
+            }
+
+            if (str.contains(".")) {
+                String field1 = StringUtils.substringBefore(str, "[");
+                String table2 = StringUtils.substringBetween(str, "[", ".");
+                String field2;
+                StringBuilder whereClause = new StringBuilder();
+                if (str.contains("]->")) {
+                    field2 = str.substring(str.indexOf(".") + 1, str.lastIndexOf("["));
+                    String values = str.substring(str.lastIndexOf("[") + 1, str.indexOf("]"));
+                    String sqlValues = StringUtils.encloseSubstrings(values, ",", SplitRegex.DROPPED, "'", ",");
+                    whereClause.append(" WHERE ").append(field2).append(" IN (").append(sqlValues).append(")");
+                } else {
+                    field2 = StringUtils.substringBetween(str, ".", "-");
+                }
+                String field3 = StringUtils.substringBetween(str, ">", "]");
+                String sql = "SELECT " + field2 + ", " + field3 + " FROM " + table2 + whereClause;
+                try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                    ResultSet rs = ps.executeQuery();
+                    Map<String, Object> map = new HashMap<>();
+                    while (rs.next()) {
+                        map.put(rs.getString(field2), rs.getObject(field3));
+                    }
+                    fieldValueMap.put(i, map);
+                    fieldForSql.add(field1);
+                }
+            } else if (str.contains(",")) {
+                String[] pairs = StringUtils.substringBetween(str, "[", "]").split(",");
+                Map<String, Object> map1 = new HashMap<>();
+                for (String s : pairs) {
+                    String[] pair = s.split(":");
+                    map1.put(pair[1], Integer.valueOf(pair[0]));
+                }
+                fieldValueMap.put(i, map1);
+                fieldForSql.add(StringUtils.substringBefore(str, "["));
+            } else if (str.contains("[")) {
+                fieldForSql.add(StringUtils.substringBefore(str, "["));
+            } else {
+                fieldForSql.add(str);
+            }
+            fieldsBuilder.append(fieldForSql.get(i)).append(",");
+        }
+        fieldsBuilder.deleteCharAt(fieldsBuilder.length() - 1);
+        return fieldsBuilder.toString();
+
+    }
+
+    /**
+     * The transaction of a connection shared by the targets on it. The auto-commit mode of the connection is turned off
+     * while importing and restored afterwards, and the connection is committed every batchesPerCommit batches of each
+     * target on it, which commits the batches of all of them together.
+     */
+    private static class Transaction implements AutoCloseable {
+        private final Connection connection;
+        private final boolean autoCommit;
+        private final int batchesPerCommit;
+        private final List<BatchWriter> writers = new ArrayList<>();
+        private int uncommittedBatches;
+        private boolean finished;
+
+        Transaction(Connection connection, int batchesPerCommit) throws SQLException {
+            this.connection = connection;
+            this.batchesPerCommit = batchesPerCommit;
+            this.autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+        }
+
+        void batchExecuted() throws SQLException {
+            if (++uncommittedBatches >= batchesPerCommit * writers.size()) {
+                commit();
+            }
+        }
+
+        void finish() throws SQLException {
+            if (uncommittedBatches > 0) {
+                commit();
+            }
+            finished = true;
+        }
+
+        private void commit() throws SQLException {
+            connection.commit();
+            uncommittedBatches = 0;
+            for (BatchWriter writer : writers) {
+                LOG.info("{}: {} rows committed", writer, writer.rows);
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                if (!finished) {
+                    connection.rollback();
+                }
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * Writes rows to one target table as batches of a parameterized INSERT statement, and keeps track of the time
+     * spent on it so that the throughput of each target can be reported.
+     */
+    private static class BatchWriter implements AutoCloseable {
+        private final TableInfo table;
+        private final Transaction transaction;
+        private final PreparedStatement ps;
+        private final int batchSize;
+        private int rowsInBatch;
+        private long rows;
+        private long nanos;
+
+        BatchWriter(TableInfo table, Transaction transaction, String columns, int paramCount, int batchSize)
+                throws SQLException {
+            this.table = table;
+            this.transaction = transaction;
+            this.batchSize = batchSize;
+            this.ps = transaction.connection.prepareStatement("INSERT INTO " + table.getSchema() + "." + table.getTable()
+                    + " (" + columns + ") VALUES (" + String.join(",", Collections.nCopies(paramCount, "?")) + ")");
+            transaction.writers.add(this);
+        }
+
+        void write(Object[] params) throws SQLException {
+            long start = System.nanoTime();
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            ps.addBatch();
+            if (++rowsInBatch == batchSize) {
+                executeBatch();
+            }
+            nanos += System.nanoTime() - start;
+        }
+
+        void finish() throws SQLException {
+            long start = System.nanoTime();
+            if (rowsInBatch > 0) {
+                executeBatch();
+            }
+            nanos += System.nanoTime() - start;
+            LOG.info("{}: {} rows imported in {}ms, {} rows/s", this, rows, nanos / 1000000,
+                    nanos == 0 ? 0 : rows * 1000000000L / nanos);
+        }
+
+        private void executeBatch() throws SQLException {
+            ps.executeBatch();
+            rows += rowsInBatch;
+            rowsInBatch = 0;
+            transaction.batchExecuted();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            ps.close();
+        }
+
+        @Override
+        public String toString() {
+            return table.getConnection() + "." + table.getSchema() + "." + table.getTable();
+        }
+    }
 }
@@ -41,6 +41,20 @@ public class ImportFromFileToDatabasesConfiguration {
      */
     private Integer startRow = 0;
 
+    /**
+     * The number of rows sent to the database in one JDBC batch. If it's null (default) all rows are imported with one
+     * multi-row INSERT statement. Otherwise the rows are read one by one and written to every target as batches of
+     * parameterized INSERT statements, so that large files don't exceed the server's {@code max_allowed_packet} and the
+     * generated SQL doesn't have to be held in memory as a whole.
+     */
+    private Integer batchSize;
+
+    /**
+     * The number of batches executed before the transaction is committed. Only used when {@link #batchSize} is set.
+     * Default 1, which means committing after every batch.
+     */
+    private Integer batchesPerCommit = 1;
+
     public String getSource() {
         return source;
     }
@@ -91,4 +105,22 @@ public class ImportFromFileToDatabasesConfiguration {
         this.startRow = startRow;
         return this;
     }
+
+    public Integer getBatchSize() {
+        return batchSize;
+    }
+
+    public ImportFromFileToDatabasesConfiguration setBatchSize(Integer batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public Integer getBatchesPerCommit() {
+        return batchesPerCommit;
+    }
+
+    public ImportFromFileToDatabasesConfiguration setBatchesPerCommit(Integer batchesPerCommit) {
+        this.batchesPerCommit = batchesPerCommit;
+        return this;
+    }
 }
@@ -126,6 +126,22 @@ public class DBUtilsTest {
                 .importFromFilesToDatabases();
     }
 
+    @Test
+    public void importFromFilesToDatabaseInBatches() throws SQLException, IOException {
+        ZipSecureFile.setMinInflateRatio(0);
+        new DataMigrateEngine.Builder()
+                .setImportFromFileToDatabasesConfigurations(new ImportFromFileToDatabasesConfiguration[]{
+                        new ImportFromFileToDatabasesConfiguration()
+                                .setSource("D:\\projects\\java-utility\\auto\\target\\output_20210215232310.xlsx.Sheet1")
+                                .setTargets("my_schema.my_schema.t_car,my_schema.my_schema_second.t_car")
+                                .setStartRow(1)
+                                .setBatchSize(1000)
+                                .setBatchesPerCommit(10)
+                })
+                .build()
+                .importFromFilesToDatabases();
+    }
+
     @Test
     public void generateList() throws SQLException, InstantiationException, IllegalAccessException {
         LOG.info("\n{}", GSON.toJson(dbUtils.generateList(CarInfo.class, 5, dbUtils.getColumns(tableInfo))));
@@ -0,0 +1,161 @@
+package net.ivanhjc.utility.benchmarks;
+
+import net.ivanhjc.utility.net.HttpUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cached bean encoder behind {@link HttpUtils#toURLParamsExcludeSeparatorsAndBlanks(Object, Boolean)}
+ * and {@link HttpUtils#toURLParamsIncludeNonNull(Object)} with the former reflective implementation, which looked up
+ * the fields and getters and sorted the fields on every call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HttpUtilsBenchmark {
+    private final Order order = new Order();
+    private final StringBuilder builder = new StringBuilder();
+
+    @Benchmark
+    public String excludeSeparatorsAndBlanksReflective() throws Exception {
+        return reflectiveExcludeSeparatorsAndBlanks(order, true);
+    }
+
+    @Benchmark
+    public String excludeSeparatorsAndBlanks() throws Exception {
+        return HttpUtils.toURLParamsExcludeSeparatorsAndBlanks(order, true);
+    }
+
+    @Benchmark
+    public int excludeSeparatorsAndBlanksReusedBuilder() {
+        builder.setLength(0);
+        return HttpUtils.toURLParamsExcludeSeparatorsAndBlanks(order, true, builder).length();
+    }
+
+    @Benchmark
+    public String includeNonNullReflective() throws Exception {
+        return reflectiveIncludeNonNull(order);
+    }
+
+    @Benchmark
+    public String includeNonNull() throws Exception {
+        return HttpUtils.toURLParamsIncludeNonNull(order);
+    }
+
+    /**
+     * The former implementation of {@link HttpUtils#toURLParamsExcludeSeparatorsAndBlanks(Object, Boolean)}
+     */
+    private static String reflectiveExcludeSeparatorsAndBlanks(Object bean, Boolean asc) throws Exception {
+        Class clazz = bean.getClass();
+        Field[] fields = clazz.getDeclaredFields();
+        if (asc != null) {
+            if (asc)
+                Arrays.sort(fields, Comparator.comparing(Field::getName));
+            else
+                Arrays.sort(fields, (o1, o2) -> o2.getName().compareTo(o1.getName()));
+        }
+        StringBuilder nameValuePairs = new StringBuilder();
+        for (Field field : fields) {
+            Object value = clazz.getDeclaredMethod("get".concat(StringUtils.capitalize(field.getName()))).invoke(bean);
+            if (value == null || value.toString().trim().isEmpty())
+                continue;
+            nameValuePairs.append(field.getName()).append(value.toString());
+        }
+        return nameValuePairs.toString();
+    }
+
+    /**
+     * The former implementation of {@link HttpUtils#toURLParamsIncludeNonNull(Object)}
+     */
+    private static String reflectiveIncludeNonNull(Object bean) throws Exception {
+        Class clazz = bean.getClass();
+        Field[] fields = clazz.getDeclaredFields();
+        StringBuilder nameValuePairs = new StringBuilder();
+        for (Field field : fields) {
+            Object value = clazz.getDeclaredMethod("get".concat(StringUtils.capitalize(field.getName()))).invoke(bean);
+            if (value == null)
+                continue;
+            nameValuePairs.append(field.getName()).append("=").append(value.toString()).append("&");
+        }
+        return nameValuePairs.deleteCharAt(nameValuePairs.length() - 1).toString();
+    }
+
+    /**
+     * A typical signed request with a dozen parameters
+     */
+    public static class Order {
+        private String appId = "2019101268303724";
+        private String method = "alipay.trade.pay";
+        private String charset = "UTF-8";
+        private String signType = "RSA2";
+        private String timestamp = "2019-10-29 18:48:33";
+        private String version = "1.0";
+        private String notifyUrl = "https://example.com/notify";
+        private String outTradeNo = "OP2019102918482646497";
+        private Double totalAmount = 0.01;
+        private String subject = "Test";
+        private String body = " ";
+        private Long buyerId = 2088412114150335L;
+        private String storeId = null;
+
+        public String getAppId() {
+            return appId;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getCharset() {
+            return charset;
+        }
+
+        public String getSignType() {
+            return signType;
+        }
+
+        public String getTimestamp() {
+            return timestamp;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public String getNotifyUrl() {
+            return notifyUrl;
+        }
+
+        public String getOutTradeNo() {
+            return outTradeNo;
+        }
+
+        public Double getTotalAmount() {
+            return totalAmount;
+        }
+
+        public String getSubject() {
+            return subject;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+        public Long getBuyerId() {
+            return buyerId;
+        }
+
+        public String getStoreId() {
+            return storeId;
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package net.ivanhjc.utility.benchmarks;
+
+import net.ivanhjc.utility.data.CountingIndex;
+import net.ivanhjc.utility.data.ListUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the sorting, merging, Venn partition, deduplication and counting methods of {@link ListUtils} and
+ * {@link CountingIndex} over growing input sizes. Every sort works on a fresh copy of the same random array, so
+ * {@link #copy(Input)} is the baseline to subtract from the sort timings. The quadratic sorts get smaller sizes than the others to keep the runs short. The
+ * other sorts are compared with {@link Arrays#sort(int[])} and {@link Arrays#parallelSort(int[])}, which should be run
+ * with as many threads as there are processors, e.g. "-p distribution=random ListUtilsBenchmark.*[sS]ort".
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListUtilsBenchmark {
+
+    @State(Scope.Thread)
+    public static class QuadraticInput {
+        @Param({"100", "1000", "10000"})
+        private int size;
+        private int[] array;
+
+        @Setup
+        public void setup() {
+            array = randomInts(size, size, 1);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Input {
+        @Param({"1000", "100000", "1000000"})
+        private int size;
+        /**
+         * Random numbers, numbers already in ascending or descending order, or random numbers of only 100 distinct
+         * values
+         */
+        @Param({"random", "sorted", "descending", "duplicates"})
+        private String distribution;
+        private int[] array;
+        private long[] longs;
+        private int[] buffer;
+
+        @Setup
+        public void setup() {
+            switch (distribution) {
+                case "sorted":
+                    array = new int[size];
+                    Arrays.setAll(array, i -> i);
+                    break;
+                case "descending":
+                    array = new int[size];
+                    Arrays.setAll(array, i -> -i);
+                    break;
+                case "duplicates":
+                    array = randomInts(size, 100, 1);
+                    break;
+                default:
+                    array = randomInts(size, Integer.MAX_VALUE, 1);
+            }
+            longs = Arrays.stream(array).asLongStream().toArray();
+            buffer = new int[size];
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class MergeInput {
+        @Param({"10000", "1000000"})
+        private int size;
+        @Param({"2", "16", "128"})
+        private int arrays;
+        private int[][] sorted;
+
+        @Setup
+        public void setup() {
+            sorted = new int[arrays][];
+            for (int i = 0; i < arrays; i++) {
+                sorted[i] = randomInts(size / arrays, Integer.MAX_VALUE, i);
+                Arrays.sort(sorted[i]);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ListInput {
+        @Param({"100", "1000", "10000"})
+        private int size;
+        /**
+         * The lists share half of their items
+         */
+        private List<Integer> left;
+        private List<Integer> right;
+        /**
+         * Every item appears twice on average
+         */
+        private String duplicatedString;
+
+        @Setup
+        public void setup() {
+            left = new ArrayList<>(size);
+            right = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                left.add(i);
+                right.add(i + size / 2);
+            }
+            List<Integer> duplicated = new ArrayList<>(size);
+            for (int value : randomInts(size, size / 2, 2)) {
+                duplicated.add(value);
+            }
+            duplicatedString = ListUtils.toStringList(duplicated);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class DeduplicateInput {
+        @Param({"10000", "1000000", "5000000"})
+        private int size;
+        /**
+         * Every number appears twice on average
+         */
+        private int[] ints;
+        private List<Integer> list;
+
+        @Setup
+        public void setup() {
+            ints = randomInts(size, size / 2, 3);
+            list = new ArrayList<>(size);
+            for (int value : ints) {
+                list.add(value);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class CountInput {
+        @Param({"10000", "1000000", "20000000"})
+        private int size;
+        /**
+         * Random numbers within a range twice as long as the array, or over all integers, which are indexed densely
+         * and sorted respectively
+         */
+        @Param({"dense", "sparse"})
+        private String distribution;
+        private int[] array;
+        private CountingIndex index;
+        private int low;
+        private int high;
+
+        @Setup
+        public void setup() {
+            array = randomInts(size, distribution.equals("dense") ? size * 2 : Integer.MAX_VALUE, 4);
+            index = CountingIndex.build(array);
+            low = array[0];
+            high = (int) Math.min(Integer.MAX_VALUE, low + (distribution.equals("dense") ? size / 10L : Integer.MAX_VALUE / 10L));
+        }
+    }
+
+    @Benchmark
+    public int[] copy(Input input) {
+        return input.array.clone();
+    }
+
+    @Benchmark
+    public int[] copyQuadratic(QuadraticInput input) {
+        return input.array.clone();
+    }
+
+    @Benchmark
+    public int[] bubbleSort(QuadraticInput input) {
+        int[] array = input.array.clone();
+        ListUtils.bubbleSort(array);
+        return array;
+    }
+
+    @Benchmark
+    public int[] bubbleSort2(QuadraticInput input) {
+        int[] array = input.array.clone();
+        ListUtils.bubbleSort2(array);
+        return array;
+    }
+
+    @Benchmark
+    public int[] insertionSort(QuadraticInput input) {
+        int[] array = input.array.clone();
+        ListUtils.insertionSort(array);
+        return array;
+    }
+
+    @Benchmark
+    public int[] selectionSort(QuadraticInput input) {
+        int[] array = input.array.clone();
+        ListUtils.selectionSort(array);
+        return array;
+    }
+
+    @Benchmark
+    public int[] selectionSort2(QuadraticInput input) {
+        int[] array = input.array.clone();
+        ListUtils.selectionSort2(array);
+        return array;
+    }
+
+    @Benchmark
+    public int[] mergeSort(Input input) {
+        int[] array = input.array.clone();
+        ListUtils.mergeSort(array, 0, array.length - 1);
+        return array;
+    }
+
+    @Benchmark
+    public int[] quickSort(Input input) {
+        int[] array = input.array.clone();
+        ListUtils.quickSort(array, 0, array.length - 1);
+        return array;
+    }
+
+    @Benchmark
+    public int[] arraysSort(Input input) {
+        int[] array = input.array.clone();
+        Arrays.sort(array);
+        return array;
+    }
+
+    @Benchmark
+    public int[] arraysParallelSort(Input input) {
+        int[] array = input.array.clone();
+        Arrays.parallelSort(array);
+        return array;
+    }
+
+    @Benchmark
+    public int[] radixSort(Input input) {
+        int[] array = input.array.clone();
+        ListUtils.radixSort(array);
+        return array;
+    }
+
+    @Benchmark
+    public int[] parallelMergeSort(Input input) {
+        int[] array = input.array.clone();
+        ListUtils.parallelMergeSort(array, input.buffer);
+        return array;
+    }
+
+    @Benchmark
+    public int[] sort(Input input) {
+        int[] array = input.array.clone();
+        ListUtils.sort(array);
+        return array;
+    }
+
+    @Benchmark
+    public long[] arraysSortLongs(Input input) {
+        long[] array = input.longs.clone();
+        Arrays.sort(array);
+        return array;
+    }
+
+    @Benchmark
+    public long[] sortLongs(Input input) {
+        long[] array = input.longs.clone();
+        ListUtils.sort(array);
+        return array;
+    }
+
+    @Benchmark
+    public int[] merge(MergeInput input) {
+        return ListUtils.merge(input.sorted);
+    }
+
+    @Benchmark
+    public long mergeIterator(MergeInput input) {
+        long sum = 0;
+        PrimitiveIterator.OfInt iterator = ListUtils.mergeIterator(input.sorted);
+        while (iterator.hasNext()) {
+            sum += iterator.nextInt();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public List<List<Integer>> venn(ListInput input) {
+        return ListUtils.venn(input.left, input.right, null);
+    }
+
+    @Benchmark
+    public List<List<Integer>> vennHash(ListInput input) {
+        return ListUtils.venn(input.left, input.right);
+    }
+
+    @Benchmark
+    public List<Integer> deduplicate(DeduplicateInput input) {
+        return ListUtils.deduplicate(input.list);
+    }
+
+    @Benchmark
+    public List<Integer> parallelDeduplicate(DeduplicateInput input) {
+        return ListUtils.parallelDeduplicate(input.list);
+    }
+
+    @Benchmark
+    public int[] deduplicateInts(DeduplicateInput input) {
+        return ListUtils.deduplicate(input.ints);
+    }
+
+    @Benchmark
+    public int[] parallelDeduplicateInts(DeduplicateInput input) {
+        return ListUtils.parallelDeduplicate(input.ints);
+    }
+
+    @Benchmark
+    public String deduplicateString(ListInput input) {
+        return ListUtils.deduplicate(input.duplicatedString);
+    }
+
+    @Benchmark
+    public CountingIndex buildCountingIndex(CountInput input) {
+        return CountingIndex.build(input.array);
+    }
+
+    @Benchmark
+    public CountingIndex parallelBuildCountingIndex(CountInput input) {
+        return CountingIndex.parallelBuild(input.array);
+    }
+
+    @Benchmark
+    public int countByIndex(CountInput input) {
+        return input.index.count(input.low, input.high);
+    }
+
+    @Benchmark
+    public int countByScan(CountInput input) {
+        return ListUtils.count(input.array, input.low, input.high);
+    }
+
+    static int[] randomInts(int size, int bound, long seed) {
+        Random random = new Random(seed);
+        int[] array = new int[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = random.nextInt(bound);
+        }
+        return array;
+    }
+}
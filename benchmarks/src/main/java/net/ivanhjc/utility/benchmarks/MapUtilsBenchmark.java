@@ -0,0 +1,83 @@
+package net.ivanhjc.utility.benchmarks;
+
+import net.ivanhjc.utility.data.MapUtils;
+import net.ivanhjc.utility.data.WeightedSampler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link MapUtils#sortByValue(Map)} over maps of growing sizes, with values drawn from a range a tenth of the
+ * size of the map so that many of them tie. {@link #topKByValue()} gets the 10 greatest values only and
+ * {@link #sortedEntriesByValue()} sorts without building a second map. The same map weights the keys of a
+ * {@link WeightedSampler}, which draws in constant time however many keys there are.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MapUtilsBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+    private Map<String, Integer> map;
+    private WeightedSampler<String> sampler;
+    private SplittableRandom random;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        map = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            map.put("key" + i, random.nextInt(Math.max(1, size / 10)));
+        }
+        sampler = WeightedSampler.of(map);
+        this.random = new SplittableRandom(1);
+    }
+
+    @Benchmark
+    public Map<String, Integer> sortByValue() {
+        return MapUtils.sortByValue(map);
+    }
+
+    @Benchmark
+    public Map<String, Integer> parallelSortByValue() {
+        return MapUtils.sortByValue(map, true);
+    }
+
+    @Benchmark
+    public Map.Entry<String, Integer>[] sortedEntriesByValue() {
+        return MapUtils.sortedEntriesByValue(map, false);
+    }
+
+    @Benchmark
+    public List<Map.Entry<String, Integer>> topKByValue() {
+        return MapUtils.topKByValue(map, 10);
+    }
+
+    @Benchmark
+    public WeightedSampler<String> buildWeightedSampler() {
+        return WeightedSampler.of(map);
+    }
+
+    @Benchmark
+    public String weightedSample() {
+        return sampler.next(random);
+    }
+
+    /**
+     * Draws 10000 indices at once
+     */
+    @Benchmark
+    @OperationsPerInvocation(10000)
+    public int[] weightedSampleIndices() {
+        return sampler.nextIndices(10000, random);
+    }
+}
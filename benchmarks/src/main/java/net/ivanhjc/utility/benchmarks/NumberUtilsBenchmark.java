@@ -0,0 +1,55 @@
+package net.ivanhjc.utility.benchmarks;
+
+import net.ivanhjc.utility.data.NumberUtils;
+import net.ivanhjc.utility.data.RangeSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link NumberUtils#getHistogramOfRanges(String[], double...)} for a growing count of numbers and ranges.
+ * The ranges are contiguous, [0, 10), [10, 20)..., and a few of the numbers fall outside of all of them.
+ * {@link #rangeSetCount()} counts them with ranges parsed beforehand.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NumberUtilsBenchmark {
+
+    @Param({"1000", "100000", "1000000", "5000000"})
+    private int size;
+    @Param({"10", "100"})
+    private int ranges;
+    private String[] rangeStrings;
+    private RangeSet rangeSet;
+    private double[] numbers;
+
+    @Setup
+    public void setup() {
+        rangeStrings = new String[ranges];
+        for (int i = 0; i < ranges; i++) {
+            rangeStrings[i] = "[" + i * 10 + ", " + (i + 1) * 10 + ")";
+        }
+        rangeSet = RangeSet.parse(rangeStrings);
+        Random random = new Random(1);
+        numbers = new double[size];
+        for (int i = 0; i < size; i++) {
+            numbers[i] = random.nextDouble() * ranges * 10.5;
+        }
+    }
+
+    @Benchmark
+    public Map<String, Integer> getHistogramOfRanges() {
+        return NumberUtils.getHistogramOfRanges(rangeStrings, numbers);
+    }
+
+    @Benchmark
+    public int[] rangeSetCount() {
+        return rangeSet.count(numbers);
+    }
+}
@@ -0,0 +1,154 @@
+package net.ivanhjc.utility.benchmarks;
+
+import net.ivanhjc.utility.data.MultiReplacer;
+import net.ivanhjc.utility.data.SplitRegex;
+import net.ivanhjc.utility.data.StringUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the case conversions, table formatting, code point translation, replacement and splitting of
+ * {@link StringUtils}. The case conversions run over a batch of identifiers, {@link #formatTable()} and the splits over
+ * a table of that many rows, {@link #translateCodePoints()} over a string of that many escaped code points, and the
+ * replacements over a template of that many lines.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StringUtilsBenchmark {
+    private static final String[] WORDS = {"user", "order", "item", "Id", "Name", "Created", "At", "Total", "Amount", "Status"};
+    private static final String[] CELLS = {"Bob", "Alice", "退押金失败通知", "42", "2019-10-29 18:48:33", "N/A", "支付宝", "0.01"};
+
+    @Param({"100", "10000"})
+    private int size;
+    private String[] camels;
+    private String[] snakes;
+    private String[][] table;
+    private String codePoints;
+    private Map<String, String> placeholders;
+    private MultiReplacer replacer;
+    private String template;
+    private List<String> lines;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        camels = new String[size];
+        snakes = new String[size];
+        for (int i = 0; i < size; i++) {
+            StringBuilder camel = new StringBuilder(WORDS[random.nextInt(3)]);
+            int words = 1 + random.nextInt(4);
+            for (int j = 0; j < words; j++) {
+                camel.append(WORDS[3 + random.nextInt(WORDS.length - 3)]);
+            }
+            camels[i] = camel.toString();
+            snakes[i] = StringUtils.camelToSnake(camels[i]);
+        }
+
+        table = new String[size][6];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < 6; j++) {
+                table[i][j] = CELLS[random.nextInt(CELLS.length)];
+            }
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            builder.append(i % 8 == 7 ? " plain text " : StringUtils.toCodePoints(CELLS[2].substring(i % 7, i % 7 + 1)));
+        }
+        codePoints = builder.toString();
+
+        placeholders = new HashMap<>();
+        for (int i = 0; i < WORDS.length; i++) {
+            placeholders.put("${" + WORDS[i] + "}", camels[i % size]);
+            placeholders.put("${" + WORDS[i] + "Type}", CELLS[i % CELLS.length]);
+        }
+        replacer = MultiReplacer.compile(placeholders);
+        builder.setLength(0);
+        for (int i = 0; i < size; i++) {
+            builder.append("    private ${").append(WORDS[i % WORDS.length]).append("Type} ${").append(WORDS[(i + 3) % WORDS.length]).append("};\n");
+        }
+        template = builder.toString();
+
+        lines = new ArrayList<>(size);
+        for (String[] row : table) {
+            lines.add(String.join(" | ", row));
+        }
+    }
+
+    @Benchmark
+    public String[] camelToSnake() {
+        return StringUtils.camelToSnake(camels);
+    }
+
+    @Benchmark
+    public String[] snakeToCamel() {
+        String[] result = new String[snakes.length];
+        for (int i = 0; i < snakes.length; i++) {
+            result[i] = StringUtils.snakeToCamel(snakes[i]);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public String[] snakeToCamelArray() {
+        return StringUtils.snakeToCamel(snakes);
+    }
+
+    @Benchmark
+    public String formatTable() {
+        return StringUtils.formatTable(table, null, "|", 2, true);
+    }
+
+    @Benchmark
+    public String formatTableNoIdeo() {
+        return StringUtils.formatTable(table, null, "|", 2, false);
+    }
+
+    @Benchmark
+    public String translateCodePoints() {
+        return StringUtils.translateCodePoints(codePoints);
+    }
+
+    @Benchmark
+    public StringBuilder replaceMap() {
+        return StringUtils.replace(new StringBuilder(template), placeholders);
+    }
+
+    @Benchmark
+    public String replaceCompiled() {
+        return replacer.replace(template);
+    }
+
+    @Benchmark
+    public int splitDropped() {
+        int cells = 0;
+        for (String line : lines) {
+            cells += StringUtils.split(line, "\\|", SplitRegex.DROPPED).length;
+        }
+        return cells;
+    }
+
+    @Benchmark
+    public int splitIndependent() {
+        int cells = 0;
+        for (String line : lines) {
+            cells += StringUtils.split(line, "\\|", SplitRegex.INDEPENDENT).length;
+        }
+        return cells;
+    }
+
+    @Benchmark
+    public String formatTableFromLines() {
+        return StringUtils.formatTable(lines, null, "|", "|", 2);
+    }
+}
@@ -0,0 +1,267 @@
+package net.ivanhjc.utility.data;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The case conversions of {@link StringUtils}. An ASCII string, which identifiers and column names almost always are,
+ * is converted in one pass over its chars into a char array, without regular expressions or intermediate strings. A
+ * string with other characters is converted with {@link String#toUpperCase()} and {@link String#toLowerCase()}, which
+ * handle the characters whose case forms differ in length.
+ * <p>
+ * The results are kept in a cache shared by all threads, which is cleared when it reaches its size, since the same
+ * names are converted over and over while generating code or matching properties with columns.
+ */
+enum CaseConversion {
+    /**
+     * hello, hELlo -> Hello
+     */
+    TITLE {
+        @Override
+        int convert(String str, char[] out) {
+            for (int i = 0; i < str.length(); i++) {
+                char c = str.charAt(i);
+                if (c >= 0x80) {
+                    return -1;
+                }
+                out[i] = i == 0 ? toUpperCase(c) : toLowerCase(c);
+            }
+            return str.length();
+        }
+
+        @Override
+        String convertSlowly(String str) {
+            return str.length() == 1 ? str.toUpperCase() : str.substring(0, 1).toUpperCase().concat(str.substring(1).toLowerCase());
+        }
+    },
+    /**
+     * wordFamily, WordFamily -> word_family
+     */
+    CAMEL_TO_SNAKE {
+        @Override
+        int convert(String str, char[] out) {
+            int n = 0;
+            for (int i = 0; i < str.length(); i++) {
+                char c = str.charAt(i);
+                if (c >= 0x80) {
+                    return -1;
+                }
+                if (c >= 'A' && c <= 'Z') {
+                    if (i > 0) {
+                        out[n++] = '_';
+                    }
+                    c += 'a' - 'A';
+                }
+                out[n++] = c;
+            }
+            return n;
+        }
+
+        @Override
+        String convertSlowly(String str) {
+            // Each word is lowercased apart, since the lowercase of some letters depends on whether they end a word
+            StringBuilder builder = new StringBuilder(str.length() + 8);
+            int start = 0;
+            for (int i = 1; i < str.length(); i++) {
+                char c = str.charAt(i);
+                if (c >= 'A' && c <= 'Z') {
+                    builder.append(str.substring(start, i).toLowerCase()).append('_');
+                    start = i;
+                }
+            }
+            return builder.append(str.substring(start).toLowerCase()).toString();
+        }
+
+        @Override
+        int maxLength(String str) {
+            return str.length() * 2;
+        }
+    },
+    /**
+     * word_family, Word_FamILy -> WordFamily
+     */
+    SNAKE_TO_CAMEL {
+        @Override
+        int convert(String str, char[] out) {
+            return convertSnake(str, out, true);
+        }
+
+        @Override
+        String convertSlowly(String str) {
+            return convertSnakeSlowly(str);
+        }
+    },
+    /**
+     * word_family, Word_FamILy -> wordFamily
+     */
+    SNAKE_TO_LOWER_CAMEL {
+        @Override
+        int convert(String str, char[] out) {
+            return convertSnake(str, out, false);
+        }
+
+        @Override
+        String convertSlowly(String str) {
+            return StringUtils.uncapitalize(convertSnakeSlowly(str));
+        }
+    };
+
+    static final int DEFAULT_CACHE_SIZE = 4096;
+    private static volatile int cacheSize = DEFAULT_CACHE_SIZE;
+
+    private final ConcurrentHashMap<String, String> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Convert an ASCII string into a char array at least {@link #maxLength(String)} long
+     *
+     * @return the length of the converted string, or -1 if the string has a character that isn't ASCII
+     */
+    abstract int convert(String str, char[] out);
+
+    /**
+     * Convert a string of any characters
+     */
+    abstract String convertSlowly(String str);
+
+    /**
+     * @return the greatest length the converted string can have
+     */
+    int maxLength(String str) {
+        return str.length();
+    }
+
+    /**
+     * @param str may be null or empty, returns as is in such cases
+     */
+    String apply(String str) {
+        if (str == null || str.isEmpty()) {
+            return str;
+        }
+        if (cacheSize == 0) {
+            return apply(str, new char[maxLength(str)]);
+        }
+        String result = cache.get(str);
+        if (result == null) {
+            result = apply(str, new char[maxLength(str)]);
+            cache(str, result);
+        }
+        return result;
+    }
+
+    /**
+     * Convert strings with one buffer
+     *
+     * @return a new array of the converted strings
+     */
+    String[] apply(String[] strs) {
+        String[] results = new String[strs.length];
+        char[] buffer = new char[64];
+        for (int i = 0; i < strs.length; i++) {
+            String str = strs[i];
+            if (str == null || str.isEmpty()) {
+                results[i] = str;
+                continue;
+            }
+            String result = cacheSize == 0 ? null : cache.get(str);
+            if (result == null) {
+                if (buffer.length < maxLength(str)) {
+                    buffer = new char[Math.max(maxLength(str), buffer.length * 2)];
+                }
+                result = apply(str, buffer);
+                if (cacheSize > 0) {
+                    cache(str, result);
+                }
+            }
+            results[i] = result;
+        }
+        return results;
+    }
+
+    /**
+     * Set the number of results kept by each conversion, 0 to keep none
+     */
+    static void setCacheSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("The cache size should not be negative: " + size);
+        }
+        cacheSize = size;
+        for (CaseConversion conversion : values()) {
+            conversion.cache.clear();
+        }
+    }
+
+    private String apply(String str, char[] buffer) {
+        int length = convert(str, buffer);
+        return length == -1 ? convertSlowly(str) : new String(buffer, 0, length);
+    }
+
+    private void cache(String str, String result) {
+        // Dropping everything is cheaper than tracking which entries are used least, and the names in use come back
+        if (cache.size() >= cacheSize) {
+            cache.clear();
+        }
+        cache.put(str, result);
+    }
+
+    /**
+     * Every part between underscores is capitalized, except the first one if the result isn't capitalized
+     */
+    private static int convertSnake(String str, char[] out, boolean capitalized) {
+        if (isBlank(str)) {
+            str.getChars(0, str.length(), out, 0);
+            return str.length();
+        }
+        int n = 0;
+        boolean start = true;
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c >= 0x80) {
+                return -1;
+            }
+            if (c == '_') {
+                start = true;
+            } else {
+                out[n] = start && (capitalized || n > 0) ? toUpperCase(c) : toLowerCase(c);
+                n++;
+                start = false;
+            }
+        }
+        return n;
+    }
+
+    private static String convertSnakeSlowly(String str) {
+        if (isBlank(str)) {
+            return str;
+        }
+        StringBuilder builder = new StringBuilder(str.length());
+        for (int start = 0, end; start < str.length(); start = end + 1) {
+            end = str.indexOf('_', start);
+            if (end == -1) {
+                end = str.length();
+            }
+            if (end > start) {
+                builder.append(TITLE.convertSlowly(str.substring(start, end)));
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return whether the string is blank as {@link String#trim()} sees it
+     */
+    private static boolean isBlank(String str) {
+        for (int i = 0; i < str.length(); i++) {
+            if (str.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char toUpperCase(char c) {
+        return c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : c;
+    }
+
+    private static char toLowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+}
@@ -0,0 +1,119 @@
+package net.ivanhjc.utility.data;
+
+/**
+ * Estimates how many times each string is added to it in a fixed amount of memory. It keeps a table of counters with
+ * a row for each of several hash functions, and a string adds to one counter of each row. The estimate of a string is
+ * the least of its counters, which is never less than the true count and with probability 1 - delta exceeds it by at
+ * most epsilon times the total count. For example:
+ * <pre>
+ * {@code
+ * CountMinSketch orders = new CountMinSketch(0.0001, 0.01);
+ * orders.add("A1");
+ * long times = orders.estimate("A1");
+ * }
+ * </pre>
+ * Sketches of the same dimensions can be merged by adding up their counters.
+ *
+ * @see <a href="http://dimacs.rutgers.edu/~graham/pubs/papers/cm-full.pdf">An Improved Data Stream Summary: The Count-Min Sketch and its Applications</a>
+ */
+public class CountMinSketch {
+    private final int width;
+    private final int depth;
+    /**
+     * The counters of all rows in one array, row by row
+     */
+    private final long[] counters;
+    private long total;
+
+    /**
+     * @param epsilon the error of an estimate relative to the total count, e.g. 0.0001
+     * @param delta   the probability of an estimate exceeding the error, e.g. 0.01
+     */
+    public CountMinSketch(double epsilon, double delta) {
+        this((int) Math.min(1 << 30, Math.ceil(Math.E / epsilon)), (int) Math.ceil(Math.log(1 / delta)));
+    }
+
+    /**
+     * @param width the number of counters of each row, rounded up to a power of 2
+     * @param depth the number of rows
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("The width and depth should be positive: " + width + ", " + depth);
+        }
+        this.width = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+        this.depth = depth;
+        this.counters = new long[this.width * depth];
+    }
+
+    /**
+     * Add a string once, null included
+     */
+    public void add(String value) {
+        add(value, 1);
+    }
+
+    /**
+     * Add a string a number of times
+     */
+    public void add(String value, long count) {
+        long hash = Hashing.hash64(value);
+        int h1 = (int) hash, h2 = (int) (hash >>> 32);
+        int mask = width - 1;
+        for (int row = 0; row < depth; row++) {
+            counters[row * width + ((h1 + row * h2) & mask)] += count;
+        }
+        total += count;
+    }
+
+    /**
+     * @return the estimated number of times the string is added, never less than the true number
+     */
+    public long estimate(String value) {
+        long hash = Hashing.hash64(value);
+        int h1 = (int) hash, h2 = (int) (hash >>> 32);
+        int mask = width - 1;
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters[row * width + ((h1 + row * h2) & mask)]);
+        }
+        return min;
+    }
+
+    /**
+     * @return the number of times all strings are added
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Add the counts of another sketch to this one
+     *
+     * @return this sketch
+     * @throws IllegalArgumentException if the dimensions differ
+     */
+    public CountMinSketch merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Can't merge sketches of different dimensions: " + width + "x" + depth + ", " + other.width + "x" + other.depth);
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] += other.counters[i];
+        }
+        total += other.total;
+        return this;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public String toString() {
+        return "CountMinSketch{width=" + width + ", depth=" + depth + ", total=" + total + "}";
+    }
+}
@@ -0,0 +1,236 @@
+package net.ivanhjc.utility.data;
+
+import java.util.IntSummaryStatistics;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * An index built once over an int array to count the numbers equal to a value or within a range without scanning the
+ * array again, as {@link ListUtils#count(int[], int)} and {@link ListUtils#count(int[], int, int)} do for every query.
+ * For example:
+ * <pre>
+ * {@code
+ * CountingIndex index = CountingIndex.build(scores);
+ * int passed = index.count(60, 100);
+ * }
+ * </pre>
+ * If the numbers span a range no longer than twice the length of the array, the index keeps the cumulative count of
+ * each value in the range and a query takes O(1) time. Otherwise it keeps a sorted copy of the array and a query takes
+ * O(log n) time by binary search. The index doesn't change with the array after it's built.
+ */
+public class CountingIndex {
+    /**
+     * Value ranges up to this long always get cumulative counts however short the array is
+     */
+    private static final int MIN_DENSE_RANGE = 1 << 10;
+    /**
+     * Arrays shorter than this are indexed by a single thread in {@link #parallelBuild(int[])}
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private final int size;
+    private final int min;
+    private final int max;
+    /**
+     * cumulative[i] is the count of numbers less than min + i, null if the index is sorted
+     */
+    private final int[] cumulative;
+    /**
+     * The sorted copy of the array, null if the index has cumulative counts
+     */
+    private final int[] sorted;
+
+    private CountingIndex(int size, int min, int max, int[] cumulative, int[] sorted) {
+        this.size = size;
+        this.min = min;
+        this.max = max;
+        this.cumulative = cumulative;
+        this.sorted = sorted;
+    }
+
+    /**
+     * Build the index of an array
+     *
+     * @param array the numbers to count, which is not modified
+     */
+    public static CountingIndex build(int[] array) {
+        if (array.length == 0) {
+            return new CountingIndex(0, 0, -1, null, array);
+        }
+        int min = array[0], max = array[0];
+        for (int n : array) {
+            if (n < min) {
+                min = n;
+            } else if (n > max) {
+                max = n;
+            }
+        }
+        if (isDense(array.length, min, max)) {
+            int[] cumulative = new int[max - min + 2];
+            for (int n : array) {
+                cumulative[n - min + 1]++;
+            }
+            accumulate(cumulative);
+            return new CountingIndex(array.length, min, max, cumulative, null);
+        }
+        int[] sorted = array.clone();
+        ListUtils.sort(sorted);
+        return new CountingIndex(array.length, min, max, null, sorted);
+    }
+
+    /**
+     * Build the index of an array over all processors. The numbers are counted by each processor in its own part of
+     * the array and the counts are added up, or the copy of the array is sorted by
+     * {@link ListUtils#parallelMergeSort(int[])}.
+     *
+     * @param array the numbers to count, which is not modified
+     */
+    public static CountingIndex parallelBuild(int[] array) {
+        int parts = ForkJoinPool.getCommonPoolParallelism();
+        if (array.length < PARALLEL_THRESHOLD || parts < 2) {
+            return build(array);
+        }
+        IntSummaryStatistics stats = IntStream.of(array).parallel().summaryStatistics();
+        int min = stats.getMin(), max = stats.getMax();
+        // Each part needs its own counts, which shouldn't take more memory than the array
+        if (isDense(array.length / parts, min, max)) {
+            int chunk = (array.length + parts - 1) / parts;
+            int[] cumulative = IntStream.range(0, parts).parallel().mapToObj(part -> {
+                int[] counts = new int[max - min + 2];
+                for (int i = part * chunk, to = Math.min(array.length, i + chunk); i < to; i++) {
+                    counts[array[i] - min + 1]++;
+                }
+                return counts;
+            }).reduce((a, b) -> {
+                for (int i = 0; i < a.length; i++) {
+                    a[i] += b[i];
+                }
+                return a;
+            }).orElseThrow(IllegalStateException::new);
+            accumulate(cumulative);
+            return new CountingIndex(array.length, min, max, cumulative, null);
+        }
+        int[] sorted = array.clone();
+        ListUtils.parallelMergeSort(sorted);
+        return new CountingIndex(array.length, min, max, null, sorted);
+    }
+
+    /**
+     * @return the count of numbers equal to the value
+     */
+    public int count(int value) {
+        return count(value, value);
+    }
+
+    /**
+     * @param low  the lower limit of the range, inclusive
+     * @param high the upper limit of the range, inclusive
+     * @return the count of numbers within the range, 0 if low is greater than high
+     */
+    public int count(int low, int high) {
+        if (low < min) {
+            low = min;
+        }
+        if (high > max) {
+            high = max;
+        }
+        if (low > high) {
+            return 0;
+        }
+        if (cumulative != null) {
+            return cumulative[high - min + 1] - cumulative[low - min];
+        }
+        return upperBound(sorted, high) - lowerBound(sorted, low);
+    }
+
+    /**
+     * @return the count of all numbers, i.e. the length of the array
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the minimum number, undefined if the array is empty
+     */
+    public int getMin() {
+        return min;
+    }
+
+    /**
+     * @return the maximum number, undefined if the array is empty
+     */
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * Get the counts of the numbers within a range in steps, e.g. for low 0, high 99 and width 10 the counts of
+     * [0, 9], [10, 19]... [90, 99]
+     *
+     * @param low   the lower limit of the first bin
+     * @param high  the upper limit of the last bin, which may be shorter than the others
+     * @param width the width of each bin
+     * @return the count of each bin
+     * @throws IllegalArgumentException if high is less than low or the width isn't positive
+     */
+    public int[] histogram(int low, int high, int width) {
+        if (high < low || width <= 0) {
+            throw new IllegalArgumentException("The range should not be empty and the width of the bins should be positive: [" + low + ", " + high + "], " + width);
+        }
+        int[] bins = new int[(int) (((long) high - low) / width + 1)];
+        for (int i = 0; i < bins.length; i++) {
+            long from = low + (long) i * width;
+            bins[i] = count((int) from, (int) Math.min(high, from + width - 1));
+        }
+        return bins;
+    }
+
+    @Override
+    public String toString() {
+        return "CountingIndex{size=" + size + ", min=" + min + ", max=" + max + ", " + (cumulative != null ? "dense" : "sorted") + "}";
+    }
+
+    private static boolean isDense(int length, int min, int max) {
+        long range = (long) max - min + 1;
+        return range <= MIN_DENSE_RANGE || range <= 2L * length && range < Integer.MAX_VALUE - 8;
+    }
+
+    private static void accumulate(int[] counts) {
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] += counts[i - 1];
+        }
+    }
+
+    /**
+     * @return the index of the first number not less than the key, or the length if there is none
+     */
+    private static int lowerBound(int[] a, int key) {
+        int from = 0, to = a.length;
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (a[mid] < key) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * @return the index of the first number greater than the key, or the length if there is none
+     */
+    private static int upperBound(int[] a, int key) {
+        int from = 0, to = a.length;
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (a[mid] <= key) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+}
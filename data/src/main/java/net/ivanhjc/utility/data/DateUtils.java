@@ -167,13 +167,7 @@ public class DateUtils extends org.apache.commons.lang3.time.DateUtils {
      * @param daysOfWeek formatted as "1,2,3" where 1 is Monday and 7 is Sunday
      */
     public static boolean inDaysOfWeek(Date date, String daysOfWeek) {
-        int[] days = ListUtils.parseInt(daysOfWeek);
-        int day = dayOfWeekMon1(date);
-        for (int d : days) {
-            if (d == day)
-                return true;
-        }
-        return false;
+        return ListUtils.containsInt(daysOfWeek, ',', dayOfWeekMon1(date));
     }
 
     /**
@@ -183,13 +177,7 @@ public class DateUtils extends org.apache.commons.lang3.time.DateUtils {
      * @param daysOfMonth the first day of month is 1
      */
     public static boolean inDaysOfMonth(Date date, String daysOfMonth) {
-        int[] days = ListUtils.parseInt(daysOfMonth);
-        int day = dayOfMonth(date);
-        for (int d : days) {
-            if (d == day)
-                return true;
-        }
-        return false;
+        return ListUtils.containsInt(daysOfMonth, ',', dayOfMonth(date));
     }
 
     public static Date getRandomDate() {
@@ -0,0 +1,38 @@
+package net.ivanhjc.utility.data;
+
+/**
+ * 64-bit hashes of strings for the sketches, since the 32 bits of {@link String#hashCode()} are too few to tell apart
+ * the hundreds of millions of values a sketch may see, and its low bits are poorly mixed
+ */
+final class Hashing {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Hashing() {
+    }
+
+    /**
+     * Hash the chars of a string with 64-bit FNV-1a and spread the result with the finalizer of MurmurHash3
+     *
+     * @return the hash, a fixed number for null
+     */
+    static long hash64(String s) {
+        if (s == null) {
+            return fmix64(FNV_PRIME);
+        }
+        long h = FNV_OFFSET_BASIS;
+        for (int i = 0, length = s.length(); i < length; i++) {
+            h = (h ^ s.charAt(i)) * FNV_PRIME;
+        }
+        return fmix64(h);
+    }
+
+    static long fmix64(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,134 @@
+package net.ivanhjc.utility.data;
+
+/**
+ * Estimates the number of distinct strings added to it in a fixed amount of memory, however many strings there are.
+ * With precision p it keeps 2^p registers of one byte each and the standard error of the estimate is about
+ * 1.04 / sqrt(2^p), e.g. 0.8% with the default precision 14 in 16KB, from a few strings to billions of them. For
+ * example:
+ * <pre>
+ * {@code
+ * HyperLogLog users = new HyperLogLog(14);
+ * users.add("Ivan");
+ * long distinct = users.cardinality();
+ * }
+ * </pre>
+ * Sketches of the same precision can be merged, so parts of a stream can be counted by different threads and the
+ * distinct count of the whole stream is the estimate of the merged sketch.
+ *
+ * @see <a href="http://algo.inria.fr/flajolet/Publications/FlFuGaMe07.pdf">HyperLogLog: the analysis of a near-optimal cardinality estimation algorithm</a>
+ * @see <a href="https://arxiv.org/abs/1702.01284">New cardinality estimation algorithms for HyperLogLog sketches</a>
+ */
+public class HyperLogLog {
+    public static final int DEFAULT_PRECISION = 14;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * @param precision the number of bits of a hash that pick the register, from 4 to 18
+     */
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("The precision should be between 4 and 18: " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Add a string, null included
+     */
+    public void add(String value) {
+        addHash(Hashing.hash64(value));
+    }
+
+    /**
+     * @return the estimated number of distinct strings added
+     */
+    public long cardinality() {
+        // The improved raw estimator of Ertl, computed from how many registers hold each rank. Unlike switching from
+        // linear counting to the raw estimate of the paper, it has no bias in the range between them.
+        int m = registers.length;
+        int q = 64 - precision;
+        int[] counts = new int[q + 2];
+        for (byte register : registers) {
+            counts[register]++;
+        }
+        double z = m * tau(1 - (double) counts[q + 1] / m);
+        for (int k = q; k >= 1; k--) {
+            z = 0.5 * (z + counts[k]);
+        }
+        z += m * sigma((double) counts[0] / m);
+        return Math.round(m / (2 * Math.log(2)) * m / z);
+    }
+
+    /**
+     * Add the strings of another sketch to this one, after which this sketch estimates the distinct strings of both
+     *
+     * @return this sketch
+     * @throws IllegalArgumentException if the precisions differ
+     */
+    public HyperLogLog merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Can't merge sketches of different precisions: " + precision + ", " + other.precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+        return this;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    @Override
+    public String toString() {
+        return "HyperLogLog{precision=" + precision + ", cardinality=" + cardinality() + "}";
+    }
+
+    /**
+     * The high p bits of the hash pick the register, which keeps the greatest position of the first 1 bit in the rest
+     */
+    private void addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    private static double sigma(double x) {
+        if (x == 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double y = 1, z = x, previous;
+        do {
+            x *= x;
+            previous = z;
+            z += x * y;
+            y += y;
+        } while (z != previous);
+        return z;
+    }
+
+    private static double tau(double x) {
+        if (x == 0 || x == 1) {
+            return 0;
+        }
+        double y = 1, z = 1 - x, previous;
+        do {
+            x = Math.sqrt(x);
+            previous = z;
+            y *= 0.5;
+            z -= (1 - x) * (1 - x) * y;
+        } while (z != previous);
+        return z / 3;
+    }
+}
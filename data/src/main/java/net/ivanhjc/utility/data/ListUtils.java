@@ -4,12 +4,22 @@ import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.math3.util.Pair;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 /**
  * @author Ivan Huang on 2017/1/12
  */
 public class ListUtils {
+    /**
+     * Inputs shorter than this are processed by a single thread in the parallel methods
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
 
+    /**
+     * Count the numbers equal to a value by scanning the array. Use {@link CountingIndex} to count the same array
+     * more than once.
+     */
     public static int count(int[] array, int a) {
         int count = 0;
         for (int i = 0; i < array.length; i++) {
@@ -19,6 +29,10 @@ public class ListUtils {
         return count;
     }
 
+    /**
+     * Count the numbers within a range, inclusive, by scanning the array. Use {@link CountingIndex} to count the same
+     * array more than once.
+     */
     public static int count(int[] array, int low, int high) {
         int count = 0;
         for (int i = 0; i < array.length; i++) {
@@ -28,8 +42,21 @@ public class ListUtils {
         return count;
     }
 
+    /**
+     * Count each number of an array of non-negative numbers
+     *
+     * @return the counts where the count of number i is at index i, as long as the maximum number plus one
+     * @see CountingIndex#histogram(int, int, int)
+     */
     public static int[] histogram(int[] array) {
-        int[] count = new int[10];
+        int max = -1;
+        for (int n : array) {
+            if (n < 0)
+                throw new IllegalArgumentException("Negative number in the array: " + n);
+            if (n > max)
+                max = n;
+        }
+        int[] count = new int[max + 1];
         for (int i = 0; i < array.length; i++) {
             int index = array[i];
             count[index]++;
@@ -122,78 +149,105 @@ public class ListUtils {
     }
 
     /**
-     * Ascending order
+     * Ascending order. The array is sorted by top-down merge sort with a single buffer of half the length of the range,
+     * switching to insertion sort for short ranges.
      *
-     * @param arr
-     * @param left
-     * @param right
+     * @param arr   the array to sort
+     * @param left  the first index of the range to sort
+     * @param right the last index of the range to sort, inclusive
      */
     public static void mergeSort(int[] arr, int left, int right) {
         if (left >= right)
             return;
 
-        int mid = (left + right) / 2;
-        mergeSort(arr, left, mid);
-        mergeSort(arr, mid + 1, right);
-
-        int[] arr1 = new int[mid - left + 1];
-        int[] arr2 = new int[right - mid];
-        for (int i = 0; i < arr1.length; i++) {
-            arr1[i] = arr[left + i];
-        }
-        for (int i = 0; i < arr2.length; i++) {
-            arr2[i] = arr[mid + 1 + i];
-        }
-        int i = 0, j = 0, k = left;
-        while (true) {
-            if (i == arr1.length) {
-                if (j == arr2.length)
-                    break;
-                arr[k++] = arr2[j++];
-                continue;
-            }
-            if (j == arr2.length) {
-                arr[k++] = arr1[i++];
-                continue;
-            }
-
-            if (arr1[i] < arr2[j]) {
-                arr[k] = arr1[i++];
-            } else {
-                arr[k] = arr2[j++];
-            }
-            k++;
-        }
+        Sorting.mergeSort(arr, left, right + 1, new int[(right - left + 2) / 2]);
     }
 
     /**
-     * Ascending order
+     * Ascending order. The array is sorted by introsort, a quicksort with the median of three numbers as the pivot
+     * which switches to heapsort when the partitioning goes too deep, so sorted or otherwise adversarial input still
+     * takes O(n log n) time.
      *
+     * @param list  the array to sort
+     * @param left  the first index of the range to sort
+     * @param right the last index of the range to sort, inclusive
      * @see Arrays#sort(int[])
      */
     public static void quickSort(int[] list, int left, int right) {
         if (left >= right)
             return;
-        int pivot = list[left];
-        int i = left;
-        int j = right;
-        while (i < j) {
-            while (list[j] > pivot && i < j) {
-                j--;
-            }
-            if (i == j)
-                break;
-            list[i++] = list[j];
-            while (list[i] < pivot && i < j) {
-                i++;
-            }
-            if (i == j)
-                break;
-            list[j--] = list[i];
+
+        Sorting.introSort(list, left, right + 1);
+    }
+
+    /**
+     * Sort an array in ascending order by radix sort, which takes O(n) time and allocates a buffer as long as the
+     * array. It's faster than comparison sorts for large arrays.
+     */
+    public static void radixSort(int[] arr) {
+        Sorting.radixSort(arr, new int[arr.length]);
+    }
+
+    /**
+     * @see #radixSort(int[])
+     */
+    public static void radixSort(long[] arr) {
+        Sorting.radixSort(arr, new long[arr.length]);
+    }
+
+    /**
+     * Sort an array in ascending order by merge sort over all processors. See {@link #parallelMergeSort(int[], int[])}.
+     */
+    public static void parallelMergeSort(int[] arr) {
+        Sorting.parallelMergeSort(arr, new int[arr.length]);
+    }
+
+    /**
+     * Sort an array in ascending order by merge sort over all processors. The halves of the array are sorted by the
+     * tasks of the common {@link java.util.concurrent.ForkJoinPool} and merged in parallel, down to the ranges small
+     * enough to be sorted by introsort in one task.
+     *
+     * @param arr    the array to sort
+     * @param buffer a buffer at least as long as the array, which can be reused between calls to avoid allocating one
+     *               each time
+     */
+    public static void parallelMergeSort(int[] arr, int[] buffer) {
+        if (buffer.length < arr.length)
+            throw new IllegalArgumentException("The buffer is shorter than the array: " + buffer.length + " < " + arr.length);
+
+        Sorting.parallelMergeSort(arr, buffer);
+    }
+
+    /**
+     * Sort an array in ascending order by the algorithm that suits its length: introsort for short arrays, parallel
+     * merge sort for large arrays if there is more than one processor, and radix sort otherwise. An array already in
+     * ascending order is left as is after one pass over it.
+     */
+    public static void sort(int[] arr) {
+        if (Sorting.isSorted(arr)) {
+            return;
+        }
+        if (arr.length < Sorting.RADIX_THRESHOLD) {
+            Sorting.introSort(arr, 0, arr.length);
+        } else if (getParallelism(arr.length) > 1) {
+            Sorting.parallelMergeSort(arr, new int[arr.length]);
+        } else {
+            Sorting.radixSort(arr, new int[arr.length]);
+        }
+    }
+
+    /**
+     * Sort an array in ascending order, by {@link Arrays#sort(long[])} for short arrays and radix sort otherwise
+     */
+    public static void sort(long[] arr) {
+        if (Sorting.isSorted(arr)) {
+            return;
+        }
+        if (arr.length < Sorting.RADIX_THRESHOLD) {
+            Arrays.sort(arr);
+        } else {
+            Sorting.radixSort(arr, new long[arr.length]);
         }
-        list[i] = pivot;
-        quickSort(list, left, i - 1);
-        quickSort(list, i + 1, right);
     }
 
     public static void unsort(int[] arr) {
@@ -358,10 +412,57 @@ public class ListUtils {
      *
      * @param array the comma-separated integer array, can be null or empty, and may
      *              contain white spaces after the commas
-     * @return an int array
+     * @return an int array, or null if the string is null
+     * @throws NumberFormatException if an item is not an integer
+     * @see #parseInt(CharSequence, char, boolean)
      */
     public static int[] parseInt(String array) {
-        return parseInt(splitAndTrim(array));
+        return array == null ? null : parseInt(array, ',', false);
+    }
+
+    /**
+     * Parses a string of delimited integers to an int array in a single pass over the characters, without splitting
+     * the string or creating a substring for each integer. White spaces around the integers are ignored and so are
+     * empty items, e.g. " 1, -2,,3 " -> [1, -2, 3].
+     *
+     * @param array       the delimited integers
+     * @param delimiter   the delimiter of the integers, such as ',' or ' '
+     * @param skipInvalid whether to skip the items that are not integers or out of the range of int, or to throw an
+     *                    exception
+     * @return an int array
+     * @throws NumberFormatException if an item is not an integer and skipInvalid is false
+     */
+    public static int[] parseInt(CharSequence array, char delimiter, boolean skipInvalid) {
+        int[] result = new int[NumberTokenizer.countTokens(array, delimiter)];
+        NumberTokenizer tokenizer = new NumberTokenizer(array, delimiter, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        int k = 0;
+        while (tokenizer.next()) {
+            if (!skipInvalid) {
+                result[k++] = (int) tokenizer.getValidValue();
+            } else if (tokenizer.isValid()) {
+                result[k++] = (int) tokenizer.getValue();
+            }
+        }
+        return k == result.length ? result : Arrays.copyOf(result, k);
+    }
+
+    /**
+     * Checks if an integer is one of the delimited integers in a string without allocating any array, e.g.
+     * ("1,2,3", ',', 2) -> true. Items that are not integers are ignored.
+     *
+     * @param array     the delimited integers
+     * @param delimiter the delimiter of the integers
+     * @param n         the integer to check
+     * @see #parseInt(CharSequence, char, boolean)
+     */
+    public static boolean containsInt(CharSequence array, char delimiter, int n) {
+        NumberTokenizer tokenizer = new NumberTokenizer(array, delimiter, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        while (tokenizer.next()) {
+            if (tokenizer.isValid() && tokenizer.getValue() == n) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -383,10 +484,36 @@ public class ListUtils {
      *
      * @param array the comma-separated integer array, can be null or empty, and may
      *              contain white spaces after the commas
-     * @return a long array
+     * @return a long array, or null if the string is null
+     * @throws NumberFormatException if an item is not an integer
+     * @see #parseLong(CharSequence, char, boolean)
      */
     public static long[] parseLong(String array) {
-        return parseLong(splitAndTrim(array));
+        return array == null ? null : parseLong(array, ',', false);
+    }
+
+    /**
+     * Parses a string of delimited integers to a long array as {@link #parseInt(CharSequence, char, boolean)} does
+     *
+     * @param array       the delimited integers
+     * @param delimiter   the delimiter of the integers, such as ',' or ' '
+     * @param skipInvalid whether to skip the items that are not integers or out of the range of long, or to throw an
+     *                    exception
+     * @return a long array
+     * @throws NumberFormatException if an item is not an integer and skipInvalid is false
+     */
+    public static long[] parseLong(CharSequence array, char delimiter, boolean skipInvalid) {
+        long[] result = new long[NumberTokenizer.countTokens(array, delimiter)];
+        NumberTokenizer tokenizer = new NumberTokenizer(array, delimiter, Long.MIN_VALUE, Long.MAX_VALUE);
+        int k = 0;
+        while (tokenizer.next()) {
+            if (!skipInvalid) {
+                result[k++] = tokenizer.getValidValue();
+            } else if (tokenizer.isValid()) {
+                result[k++] = tokenizer.getValue();
+            }
+        }
+        return k == result.length ? result : Arrays.copyOf(result, k);
     }
 
     /**
@@ -420,15 +547,26 @@ public class ListUtils {
      *
      * @param str the input string
      * @return an array of strings
-     * @throws
      */
     public static String[] splitAndTrim(String str) {
         List<String> result = new ArrayList<>();
-        String[] array = str.split(",");
-        for (String item : array) {
-            item = item.trim();
-            if (!item.isEmpty())
-                result.add(item);
+        int from = 0;
+        while (from <= str.length()) {
+            int to = str.indexOf(',', from);
+            if (to == -1) {
+                to = str.length();
+            }
+            int start = from, end = to;
+            while (start < end && str.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && str.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            if (start < end) {
+                result.add(str.substring(start, end));
+            }
+            from = to + 1;
         }
         return result.toArray(new String[0]);
     }
@@ -462,9 +600,10 @@ public class ListUtils {
      *
      * @param array the comma-separated string that may contain numbers and substrings
      * @return the array of integers sorted out from the string
+     * @see #parseInt(CharSequence, char, boolean)
      */
     public static int[] toIntArrayIgnoreNonInt(String array) {
-        return toIntArrayIgnoreNonInt(splitAndTrim(array));
+        return parseInt(array, ',', true);
     }
 
     /**
@@ -538,12 +677,18 @@ public class ListUtils {
      * in the second list. The equality of the items is customizable. Duplicate items in a given list are treated as one
      * that would be put in its corresponding list. The original lists are kept unchanged. Thinking of the process as
      * a Venn diagram partition gives name to this method.
+     * <p>
+     * The items of both lists are sorted by the comparator and then merged, which takes O(n log n) time. Each of the
+     * result lists keeps the order in which its items first appear in the given lists. An item present in both lists
+     * is taken from the second list.
      *
      * @param leftList   the first list
      * @param rightList  the second list
      * @param comparator comparing rules. It can be null if the items of the lists are {@link Comparable}.
      * @return the 3 lists in the order described above
+     * @see #venn(List, List)
      */
+    @SuppressWarnings("unchecked")
     public static <T> List<List<T>> venn(List<T> leftList, List<T> rightList, Comparator<T> comparator) {
         if (leftList == null || leftList.isEmpty()) {
             return new ArrayList<>(Arrays.asList(new ArrayList<>(), new ArrayList<>(), rightList == null ? new ArrayList<>() : rightList));
@@ -554,23 +699,129 @@ public class ListUtils {
         }
 
         Comparator<T> finalComp = comparator == null ? Comparator.comparing(o -> ((Comparable) o)) : comparator;
-        List<T> leftItems = deduplicate(leftList);
-        List<T> rightItems = deduplicate(rightList);
-        List<T> commonItems = new ArrayList<>();
-        for (int i = 0; i < leftItems.size(); i++) {
-            T leftItem = leftItems.get(i);
-            for (int j = 0; j < rightItems.size(); j++) {
-                T rightItem = rightItems.get(j);
-                if (finalComp.compare(leftItem, rightItem) == 0) {
-                    commonItems.add(rightItem);
-                    leftItems.remove(leftItem);
-                    rightItems.remove(rightItem);
-                    i--;
-                    break;
+        Object[] leftItems = leftList.toArray();
+        Object[] rightItems = rightList.toArray();
+        int[] leftOrder = sortedIndices(leftItems, finalComp);
+        int[] rightOrder = sortedIndices(rightItems, finalComp);
+        // Index of the item of the other list each first occurrence is equal to, -1 for none, and -2 for duplicates
+        int[] leftMatches = new int[leftItems.length];
+        int[] rightMatches = new int[rightItems.length];
+        markDuplicates(leftItems, leftOrder, leftMatches, finalComp);
+        markDuplicates(rightItems, rightOrder, rightMatches, finalComp);
+
+        int i = 0, j = 0;
+        while (i < leftOrder.length && j < rightOrder.length) {
+            int l = leftOrder[i], r = rightOrder[j];
+            if (leftMatches[l] == -2) {
+                i++;
+            } else if (rightMatches[r] == -2) {
+                j++;
+            } else {
+                int cmp = finalComp.compare((T) leftItems[l], (T) rightItems[r]);
+                if (cmp < 0) {
+                    i++;
+                } else if (cmp > 0) {
+                    j++;
+                } else {
+                    leftMatches[l] = r;
+                    rightMatches[r] = l;
+                    i++;
+                    j++;
                 }
             }
         }
-        return new ArrayList<>(Arrays.asList(leftItems, commonItems, rightItems));
+
+        List<T> leftOnly = new ArrayList<>();
+        List<T> common = new ArrayList<>();
+        List<T> rightOnly = new ArrayList<>();
+        for (int k = 0; k < leftItems.length; k++) {
+            if (leftMatches[k] == -1) {
+                leftOnly.add((T) leftItems[k]);
+            } else if (leftMatches[k] >= 0) {
+                common.add((T) rightItems[leftMatches[k]]);
+            }
+        }
+        for (int k = 0; k < rightItems.length; k++) {
+            if (rightMatches[k] == -1) {
+                rightOnly.add((T) rightItems[k]);
+            }
+        }
+        return new ArrayList<>(Arrays.asList(leftOnly, common, rightOnly));
+    }
+
+    /**
+     * Same as {@link #venn(List, List, Comparator)} but the items are compared by {@link Object#equals(Object)}, so it
+     * only works for items whose {@link Object#hashCode()} is consistent with {@code equals}. The items are looked up
+     * in hash tables, which takes O(n) time. Null items are allowed.
+     *
+     * @param leftList  the first list
+     * @param rightList the second list
+     * @return the 3 lists in the order described in {@link #venn(List, List, Comparator)}
+     */
+    public static <T> List<List<T>> venn(List<T> leftList, List<T> rightList) {
+        if (leftList == null || leftList.isEmpty()) {
+            return new ArrayList<>(Arrays.asList(new ArrayList<>(), new ArrayList<>(), rightList == null ? new ArrayList<>() : rightList));
+        }
+
+        if (rightList == null || rightList.isEmpty()) {
+            return new ArrayList<>(Arrays.asList(leftList, new ArrayList<>(), new ArrayList<>()));
+        }
+
+        // First occurrences of the right items, mapped to themselves to return the right item of a common pair
+        Map<T, T> rightItems = new LinkedHashMap<>(rightList.size() * 4 / 3 + 1);
+        for (T item : rightList) {
+            rightItems.putIfAbsent(item, item);
+        }
+        Set<T> leftItems = new HashSet<>(leftList.size() * 4 / 3 + 1);
+        List<T> leftOnly = new ArrayList<>();
+        List<T> common = new ArrayList<>();
+        for (T item : leftList) {
+            if (!leftItems.add(item)) {
+                continue;
+            }
+            if (rightItems.containsKey(item)) {
+                common.add(rightItems.get(item));
+            } else {
+                leftOnly.add(item);
+            }
+        }
+        List<T> rightOnly = new ArrayList<>();
+        for (T item : rightItems.keySet()) {
+            if (!leftItems.contains(item)) {
+                rightOnly.add(item);
+            }
+        }
+        return new ArrayList<>(Arrays.asList(leftOnly, common, rightOnly));
+    }
+
+    /**
+     * Get the indices of the items in the order of the items. The sort is stable, so equal items stay in the order
+     * they appear.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> int[] sortedIndices(Object[] items, Comparator<T> comparator) {
+        Integer[] indices = new Integer[items.length];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+        Arrays.sort(indices, (a, b) -> comparator.compare((T) items[a], (T) items[b]));
+        int[] order = new int[indices.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = indices[i];
+        }
+        return order;
+    }
+
+    /**
+     * Mark the first occurrence of each item with -1 and the later occurrences with -2
+     *
+     * @param order the sorted indices of the items
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void markDuplicates(Object[] items, int[] order, int[] marks, Comparator<T> comparator) {
+        for (int i = 0; i < order.length; i++) {
+            marks[order[i]] = i > 0 && comparator.compare((T) items[order[i - 1]], (T) items[order[i]]) == 0 ? -2 : -1;
+        }
     }
 
     /**
@@ -620,6 +871,8 @@ public class ListUtils {
      * side of another table. Push the array where the card is picked forward to the edge of the table. Again, pick up the smallest
      * card in the first row and put it next to the previously picked card. Repeat the picking until all cards of all arrays are
      * placed on the other table, and the final array of cards is the result of merging the given arrays of cards.
+     * <p>
+     * The first cards are kept in a min-heap, so merging N integers of k arrays takes O(N log k) time.
      *
      * @param arrs the given arrays of integers to merge
      * @return one array by combining the given arrays. The original arrays are intact after this method.
@@ -630,56 +883,252 @@ public class ListUtils {
             len += a.length;
         }
         int[] arr = new int[len];
-        int[] indices = new int[arrs.length];
-        int k = 0;
-        while (true) {
-            int minIdx = 0;
-            int completed = 0;
-            for (int i = 0; i < arrs.length; i++) {
-                if (indices[i] == arrs[i].length) {
-                    completed++;
-                    if (completed == i + 1)
-                        minIdx++;
-                    continue;
-                }
-                if (arrs[i][indices[i]] < arrs[minIdx][indices[minIdx]])
-                    minIdx = i;
-            }
-
-            if (completed == arrs.length)
-                break;
+        PrimitiveIterator.OfInt iterator = mergeIterator(arrs);
+        for (int k = 0; k < len; k++) {
+            arr[k] = iterator.nextInt();
+        }
+        return arr;
+    }
 
-            arr[k++] = arrs[minIdx][indices[minIdx]];
-            indices[minIdx]++;
+    /**
+     * @see #merge(int[]...)
+     */
+    public static long[] merge(long[]... arrs) {
+        int len = 0;
+        for (long[] a : arrs) {
+            len += a.length;
+        }
+        long[] arr = new long[len];
+        PrimitiveIterator.OfLong iterator = mergeIterator(arrs);
+        for (int k = 0; k < len; k++) {
+            arr[k] = iterator.nextLong();
         }
         return arr;
     }
 
     /**
-     * Removes duplicate items from a string list separated by comma.
+     * Merges lists each sorted by the comparator into one sorted list as {@link #merge(int[]...)} does
+     *
+     * @param lists      the sorted lists to merge
+     * @param comparator the order of the lists
+     * @return a new list, the original lists are intact after this method
+     */
+    public static <T> List<T> merge(List<? extends List<? extends T>> lists, Comparator<? super T> comparator) {
+        int len = 0;
+        for (List<? extends T> list : lists) {
+            len += list.size();
+        }
+        List<T> result = new ArrayList<>(len);
+        mergeIterator(lists, comparator).forEachRemaining(result::add);
+        return result;
+    }
+
+    /**
+     * Merges sorted arrays lazily, returning the numbers of all arrays in ascending order one at a time without
+     * allocating the merged array. The first numbers of the arrays are kept in a min-heap, so getting each number
+     * takes O(log k) time for k arrays. Equal numbers are returned in the order of the arrays they belong to.
+     *
+     * @param arrs the sorted arrays, which should not be modified before the iteration is done
+     * @return an iterator over the merged numbers
+     * @see #merge(int[]...)
+     */
+    public static PrimitiveIterator.OfInt mergeIterator(int[]... arrs) {
+        return new IntMergeIterator(arrs);
+    }
+
+    /**
+     * @see #mergeIterator(int[]...)
+     */
+    public static PrimitiveIterator.OfLong mergeIterator(long[]... arrs) {
+        return new LongMergeIterator(arrs);
+    }
+
+    /**
+     * Merges sorted sequences lazily as {@link #mergeIterator(int[]...)} does. Each sequence is only iterated as far
+     * as the merged iterator is, so they can be streamed from files or other iterators.
+     *
+     * @param sources    the sequences each sorted by the comparator
+     * @param comparator the order of the sequences
+     * @return an iterator over the merged items
+     */
+    public static <T> Iterator<T> mergeIterator(Iterable<? extends Iterable<? extends T>> sources, Comparator<? super T> comparator) {
+        return new MergeIterator<>(sources, comparator);
+    }
+
+    /**
+     * Removes duplicate items from a string list separated by comma. Empty items at the end of the list are dropped,
+     * as {@link String#split(String)} does.
      *
      * @param str the string list
      * @return a string list without duplicate items
      */
     public static String deduplicate(String str) {
-        List<String> list = deduplicate(Arrays.asList(str.split(",")));
-        return toStringList(list);
+        Set<String> items = new LinkedHashSet<>();
+        int emptyItems = 0;
+        int from = 0;
+        while (from <= str.length()) {
+            int to = str.indexOf(',', from);
+            if (to == -1) {
+                to = str.length();
+            }
+            if (to == from) {
+                emptyItems++;
+            } else {
+                if (emptyItems > 0) {
+                    items.add("");
+                    emptyItems = 0;
+                }
+                items.add(str.substring(from, to));
+            }
+            from = to + 1;
+        }
+        return String.join(",", items);
     }
 
     /**
-     * Removes duplicate items from a list. You can also use Set to remove duplicates, for example, {@code return new HashSet<>(list)}
+     * Removes duplicate items from a list, keeping the first occurrence of each item in its original order. The items
+     * are looked up in a {@link LinkedHashSet}, so it takes O(n) time and the items must have a {@link Object#hashCode()}
+     * consistent with {@link Object#equals(Object)}.
      *
      * @param list the list that may contain duplicate items
      * @return a new list that contains no duplicates from the original list
      */
     public static <T> List<T> deduplicate(List<T> list) {
-        List<T> list1 = new ArrayList<>();
-        for (T item : list) {
-            if (!list1.contains(item)) {
-                list1.add(item);
+        return new ArrayList<>(new LinkedHashSet<>(list));
+    }
+
+    /**
+     * Removes duplicate numbers from an array, keeping the first occurrence of each number in its original order,
+     * without boxing the numbers
+     *
+     * @param array the array that may contain duplicate numbers
+     * @return a new array that contains no duplicates from the original array
+     */
+    public static int[] deduplicate(int[] array) {
+        LongHashSet set = new LongHashSet(array.length);
+        int[] result = new int[array.length];
+        int k = 0;
+        for (int n : array) {
+            if (set.add(n)) {
+                result[k++] = n;
+            }
+        }
+        return k == result.length ? result : Arrays.copyOf(result, k);
+    }
+
+    /**
+     * @see #deduplicate(int[])
+     */
+    public static long[] deduplicate(long[] array) {
+        LongHashSet set = new LongHashSet(array.length);
+        long[] result = new long[array.length];
+        int k = 0;
+        for (long n : array) {
+            if (set.add(n)) {
+                result[k++] = n;
+            }
+        }
+        return k == result.length ? result : Arrays.copyOf(result, k);
+    }
+
+    /**
+     * Same as {@link #deduplicate(int[])} but uses all processors for large arrays. The numbers are partitioned by
+     * their hash codes and each partition scans the whole array for the first occurrences of its own numbers, so the
+     * hash sets are split among the processors and the original order is kept.
+     */
+    public static int[] parallelDeduplicate(int[] array) {
+        int parts = getParallelism(array.length);
+        if (parts == 1) {
+            return deduplicate(array);
+        }
+        boolean[] first = new boolean[array.length];
+        IntStream.range(0, parts).parallel().forEach(part -> {
+            LongHashSet set = new LongHashSet(array.length / parts);
+            for (int i = 0; i < array.length; i++) {
+                if (partition(LongHashSet.hash(array[i]), parts) == part) {
+                    first[i] = set.add(array[i]);
+                }
+            }
+        });
+        int[] result = new int[array.length];
+        int k = 0;
+        for (int i = 0; i < array.length; i++) {
+            if (first[i]) {
+                result[k++] = array[i];
+            }
+        }
+        return Arrays.copyOf(result, k);
+    }
+
+    /**
+     * @see #parallelDeduplicate(int[])
+     */
+    public static long[] parallelDeduplicate(long[] array) {
+        int parts = getParallelism(array.length);
+        if (parts == 1) {
+            return deduplicate(array);
+        }
+        boolean[] first = new boolean[array.length];
+        IntStream.range(0, parts).parallel().forEach(part -> {
+            LongHashSet set = new LongHashSet(array.length / parts);
+            for (int i = 0; i < array.length; i++) {
+                if (partition(LongHashSet.hash(array[i]), parts) == part) {
+                    first[i] = set.add(array[i]);
+                }
+            }
+        });
+        long[] result = new long[array.length];
+        int k = 0;
+        for (int i = 0; i < array.length; i++) {
+            if (first[i]) {
+                result[k++] = array[i];
+            }
+        }
+        return Arrays.copyOf(result, k);
+    }
+
+    /**
+     * Same as {@link #deduplicate(List)} but uses all processors for large lists, partitioning the items by their hash
+     * codes as {@link #parallelDeduplicate(int[])} does
+     */
+    public static <T> List<T> parallelDeduplicate(List<T> list) {
+        int parts = getParallelism(list.size());
+        if (parts == 1) {
+            return deduplicate(list);
+        }
+        Object[] items = list.toArray();
+        int[] hashes = new int[items.length];
+        Arrays.parallelSetAll(hashes, i -> items[i] == null ? 0 : LongHashSet.hash(items[i].hashCode()));
+        boolean[] first = new boolean[items.length];
+        IntStream.range(0, parts).parallel().forEach(part -> {
+            Set<Object> set = new HashSet<>(items.length / parts * 4 / 3 + 1);
+            for (int i = 0; i < items.length; i++) {
+                if (partition(hashes[i], parts) == part) {
+                    first[i] = set.add(items[i]);
+                }
+            }
+        });
+        List<T> result = new ArrayList<>();
+        for (int i = 0; i < items.length; i++) {
+            if (first[i]) {
+                @SuppressWarnings("unchecked")
+                T item = (T) items[i];
+                result.add(item);
             }
         }
-        return list1;
+        return result;
+    }
+
+    private static int getParallelism(int length) {
+        return length < PARALLEL_THRESHOLD ? 1 : Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * Map a hash code to one of the partitions by its high bits, leaving the low bits to index the hash set of the
+     * partition
+     */
+    private static int partition(int hash, int parts) {
+        return (int) (((hash >>> 1) * (long) parts) >>> 31);
     }
 
     /**
@@ -733,4 +1182,219 @@ public class ListUtils {
         return resultList;
     }
 
+    /**
+     * The min-heap of {@link #mergeIterator(int[]...)}. The heap holds the indices of the arrays that aren't exhausted,
+     * ordered by their current numbers.
+     */
+    private static class IntMergeIterator implements PrimitiveIterator.OfInt {
+        private final int[][] arrays;
+        private final int[] positions;
+        private final int[] heap;
+        private int size;
+
+        IntMergeIterator(int[][] arrays) {
+            this.arrays = arrays;
+            this.positions = new int[arrays.length];
+            this.heap = new int[arrays.length];
+            for (int i = 0; i < arrays.length; i++) {
+                if (arrays[i].length > 0) {
+                    heap[size++] = i;
+                }
+            }
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return size > 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (size == 0) {
+                throw new NoSuchElementException();
+            }
+            int a = heap[0];
+            int n = arrays[a][positions[a]++];
+            if (positions[a] == arrays[a].length) {
+                heap[0] = heap[--size];
+            }
+            siftDown(0);
+            return n;
+        }
+
+        private boolean less(int a, int b) {
+            int x = arrays[a][positions[a]], y = arrays[b][positions[b]];
+            return x < y || x == y && a < b;
+        }
+
+        private void siftDown(int i) {
+            int a = heap[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && less(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!less(heap[child], a)) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = a;
+        }
+    }
+
+    /**
+     * @see IntMergeIterator
+     */
+    private static class LongMergeIterator implements PrimitiveIterator.OfLong {
+        private final long[][] arrays;
+        private final int[] positions;
+        private final int[] heap;
+        private int size;
+
+        LongMergeIterator(long[][] arrays) {
+            this.arrays = arrays;
+            this.positions = new int[arrays.length];
+            this.heap = new int[arrays.length];
+            for (int i = 0; i < arrays.length; i++) {
+                if (arrays[i].length > 0) {
+                    heap[size++] = i;
+                }
+            }
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return size > 0;
+        }
+
+        @Override
+        public long nextLong() {
+            if (size == 0) {
+                throw new NoSuchElementException();
+            }
+            int a = heap[0];
+            long n = arrays[a][positions[a]++];
+            if (positions[a] == arrays[a].length) {
+                heap[0] = heap[--size];
+            }
+            siftDown(0);
+            return n;
+        }
+
+        private boolean less(int a, int b) {
+            long x = arrays[a][positions[a]], y = arrays[b][positions[b]];
+            return x < y || x == y && a < b;
+        }
+
+        private void siftDown(int i) {
+            int a = heap[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && less(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!less(heap[child], a)) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = a;
+        }
+    }
+
+    /**
+     * The min-heap of {@link #mergeIterator(Iterable, Comparator)}, which holds the indices of the sources that aren't
+     * exhausted ordered by the items last taken from them
+     */
+    private static class MergeIterator<T> implements Iterator<T> {
+        private final Comparator<? super T> comparator;
+        private final List<Iterator<? extends T>> iterators = new ArrayList<>();
+        private final List<T> heads = new ArrayList<>();
+        private final int[] heap;
+        private int size;
+
+        MergeIterator(Iterable<? extends Iterable<? extends T>> sources, Comparator<? super T> comparator) {
+            this.comparator = comparator;
+            int[] heap = new int[8];
+            for (Iterable<? extends T> source : sources) {
+                Iterator<? extends T> iterator = source.iterator();
+                if (iterator.hasNext()) {
+                    if (size == heap.length) {
+                        heap = Arrays.copyOf(heap, size * 2);
+                    }
+                    heap[size++] = iterators.size();
+                    heads.add(iterator.next());
+                } else {
+                    heads.add(null);
+                }
+                iterators.add(iterator);
+            }
+            this.heap = heap;
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return size > 0;
+        }
+
+        @Override
+        public T next() {
+            if (size == 0) {
+                throw new NoSuchElementException();
+            }
+            int a = heap[0];
+            T item = heads.get(a);
+            Iterator<? extends T> iterator = iterators.get(a);
+            if (iterator.hasNext()) {
+                heads.set(a, iterator.next());
+            } else {
+                heads.set(a, null);
+                heap[0] = heap[--size];
+            }
+            siftDown(0);
+            return item;
+        }
+
+        private boolean less(int a, int b) {
+            int cmp = comparator.compare(heads.get(a), heads.get(b));
+            return cmp < 0 || cmp == 0 && a < b;
+        }
+
+        private void siftDown(int i) {
+            int a = heap[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && less(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!less(heap[child], a)) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = a;
+        }
+    }
 }
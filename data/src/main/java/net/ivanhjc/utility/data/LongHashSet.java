@@ -0,0 +1,102 @@
+package net.ivanhjc.utility.data;
+
+/**
+ * A set of primitive longs with open addressing and linear probing, so adding a number neither boxes it nor allocates
+ * a node. Ints are stored widened to longs. It only supports adding and looking up, which is what deduplication and
+ * counting need.
+ */
+class LongHashSet {
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    /**
+     * Whether 0 is in the set, since 0 marks the empty slots of {@link #keys}
+     */
+    private boolean containsZero;
+    private int size;
+    private int mask;
+    private int threshold;
+
+    /**
+     * @param expectedSize how many numbers are expected, so that the set won't have to grow before holding them
+     */
+    LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) Math.min(1 << 30, (long) (expectedSize / LOAD_FACTOR) + 1)) - 1) << 1;
+        keys = new long[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * @return true if the number was not in the set
+     */
+    boolean add(long key) {
+        if (key == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int i = hash(key) & mask;
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        if (++size > threshold) {
+            rehash();
+        }
+        return true;
+    }
+
+    boolean contains(long key) {
+        if (key == 0) {
+            return containsZero;
+        }
+        int i = hash(key) & mask;
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * The finalizer of MurmurHash3, which spreads keys that only differ in the high bits, or are multiples of the
+     * capacity, over the whole table
+     */
+    static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private void rehash() {
+        long[] old = keys;
+        keys = new long[old.length << 1];
+        mask = keys.length - 1;
+        threshold = (int) (keys.length * LOAD_FACTOR);
+        for (long key : old) {
+            if (key != 0) {
+                int i = hash(key) & mask;
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+            }
+        }
+    }
+}
@@ -7,6 +7,7 @@ import org.apache.commons.collections.CollectionUtils;
 import java.lang.reflect.Field;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * @author Ivan Huang on 2018/4/2 16:57
@@ -39,11 +40,21 @@ public class MapUtils extends org.apache.commons.collections.MapUtils {
      * @return a new sorted map
      */
     public static <K, V extends Comparable<? super V>> Map<K, V> sortByValue(Map<K, V> map) {
-        List<Map.Entry<K, V>> list = new ArrayList<>(map.entrySet());
-        list.sort(Comparator.comparing(Map.Entry::getValue));
-        Map<K, V> result = new LinkedHashMap<>();
-        list.forEach(entry -> result.put(entry.getKey(), entry.getValue()));
-        return result;
+        return sortByValue(map, false);
+    }
+
+    /**
+     * Sort a map by value, optionally with {@link Arrays#parallelSort(Object[], Comparator)} which splits the sort
+     * among all processors for large maps. Entries with equal values keep their order in the map either way.
+     *
+     * @param map      the map to sort
+     * @param parallel whether to sort in parallel
+     * @param <K>      key type
+     * @param <V>      value type
+     * @return a new sorted map
+     */
+    public static <K, V extends Comparable<? super V>> Map<K, V> sortByValue(Map<K, V> map, boolean parallel) {
+        return toLinkedHashMap(sortedEntriesByValue(map, parallel));
     }
 
     /**
@@ -55,10 +66,138 @@ public class MapUtils extends org.apache.commons.collections.MapUtils {
      * @return a new sorted map
      */
     public static <K extends Comparable<? super K>, V> Map<K, V> sortByKey(Map<K, V> map) {
-        List<Map.Entry<K, V>> list = new ArrayList<>(map.entrySet());
-        list.sort(Comparator.comparing(Map.Entry::getKey));
-        Map<K, V> result = new LinkedHashMap<>();
-        list.forEach(entry -> result.put(entry.getKey(), entry.getValue()));
+        return sortByKey(map, false);
+    }
+
+    /**
+     * Sort a map by key, optionally in parallel as {@link #sortByValue(Map, boolean)} does.
+     *
+     * @param map      the map to sort
+     * @param parallel whether to sort in parallel
+     * @param <K>      key type
+     * @param <V>      value type
+     * @return a new sorted map
+     */
+    public static <K extends Comparable<? super K>, V> Map<K, V> sortByKey(Map<K, V> map, boolean parallel) {
+        return toLinkedHashMap(sortedEntriesByKey(map, parallel));
+    }
+
+    /**
+     * Sort the entries of a map by value into an array without building a second map, for when the sorted entries
+     * are only iterated once, e.g. to be printed. The entries are the map's own, so they change with the map.
+     *
+     * @param map      the map to sort
+     * @param parallel whether to sort in parallel
+     * @param <K>      key type
+     * @param <V>      value type
+     * @return the entries in ascending order of value
+     */
+    public static <K, V extends Comparable<? super V>> Map.Entry<K, V>[] sortedEntriesByValue(Map<K, V> map, boolean parallel) {
+        return sortedEntries(map, Map.Entry.comparingByValue(), parallel);
+    }
+
+    /**
+     * Sort the entries of a map by key into an array without building a second map, as
+     * {@link #sortedEntriesByValue(Map, boolean)} does.
+     *
+     * @param map      the map to sort
+     * @param parallel whether to sort in parallel
+     * @param <K>      key type
+     * @param <V>      value type
+     * @return the entries in ascending order of key
+     */
+    public static <K extends Comparable<? super K>, V> Map.Entry<K, V>[] sortedEntriesByKey(Map<K, V> map, boolean parallel) {
+        return sortedEntries(map, Map.Entry.comparingByKey(), parallel);
+    }
+
+    /**
+     * Get the k entries of a map with the greatest values, e.g. the most frequent items of a map of counts. Only k
+     * entries are kept in a heap while the map is scanned, so it takes O(n log k) time and O(k) memory instead of
+     * sorting all n entries.
+     *
+     * @param map the map to scan
+     * @param k   the number of entries to get
+     * @param <K> key type
+     * @param <V> value type
+     * @return at most k entries in descending order of value
+     */
+    public static <K, V extends Comparable<? super V>> List<Map.Entry<K, V>> topKByValue(Map<K, V> map, int k) {
+        return topK(map, k, Map.Entry.comparingByValue());
+    }
+
+    /**
+     * Get the k entries of a map with the greatest keys, as {@link #topKByValue(Map, int)} does.
+     *
+     * @param map the map to scan
+     * @param k   the number of entries to get
+     * @param <K> key type
+     * @param <V> value type
+     * @return at most k entries in descending order of key
+     */
+    public static <K extends Comparable<? super K>, V> List<Map.Entry<K, V>> topKByKey(Map<K, V> map, int k) {
+        return topK(map, k, Map.Entry.comparingByKey());
+    }
+
+    /**
+     * Get the k greatest entries of a map by a comparator in O(n log k) time. Pass a reversed comparator to get the k
+     * least entries.
+     *
+     * @param map        the map to scan
+     * @param k          the number of entries to get
+     * @param comparator the order of the entries
+     * @param <K>        key type
+     * @param <V>        value type
+     * @return a new list of at most k entries in descending order
+     * @throws IllegalArgumentException if k is negative
+     */
+    public static <K, V> List<Map.Entry<K, V>> topK(Map<K, V> map, int k, Comparator<? super Map.Entry<K, V>> comparator) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k should not be negative: " + k);
+        }
+        if (k >= map.size()) {
+            Map.Entry<K, V>[] entries = sortedEntries(map, comparator.reversed(), false);
+            return new ArrayList<>(Arrays.asList(entries));
+        }
+        if (k == 0) {
+            return new ArrayList<>();
+        }
+        // A min-heap of the greatest entries so far, the root of which is the least of them to be replaced
+        PriorityQueue<Map.Entry<K, V>> heap = new PriorityQueue<>(k, comparator);
+        for (Map.Entry<K, V> entry : map.entrySet()) {
+            if (heap.size() < k) {
+                heap.offer(entry);
+            } else if (comparator.compare(entry, heap.peek()) > 0) {
+                heap.poll();
+                heap.offer(entry);
+            }
+        }
+        Map.Entry<K, V>[] top = newEntryArray(heap.size());
+        for (int i = top.length - 1; i >= 0; i--) {
+            top[i] = heap.poll();
+        }
+        return new ArrayList<>(Arrays.asList(top));
+    }
+
+    private static <K, V> Map.Entry<K, V>[] sortedEntries(Map<K, V> map, Comparator<? super Map.Entry<K, V>> comparator, boolean parallel) {
+        Map.Entry<K, V>[] entries = map.entrySet().toArray(newEntryArray(map.size()));
+        if (parallel) {
+            Arrays.parallelSort(entries, comparator);
+        } else {
+            Arrays.sort(entries, comparator);
+        }
+        return entries;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <K, V> Map.Entry<K, V>[] newEntryArray(int length) {
+        return new Map.Entry[length];
+    }
+
+    private static <K, V> Map<K, V> toLinkedHashMap(Map.Entry<K, V>[] entries) {
+        Map<K, V> result = new LinkedHashMap<>(entries.length * 4 / 3 + 1);
+        for (Map.Entry<K, V> entry : entries) {
+            result.put(entry.getKey(), entry.getValue());
+        }
         return result;
     }
 
@@ -135,12 +274,17 @@ public class MapUtils extends org.apache.commons.collections.MapUtils {
      * Selects an item from an array of items each of which has a probability to be selected. For example, if you have these people: Ivan, John, Alex, Mark, and their
      * probabilities to be selected are 0.5, 0.1, 0.3, 0.05 respectively, this method should return one of these people according to their probabilities.
      *
+     * <p>
+     * Each call walks the map. To select from the same map many times, build a {@link WeightedSampler} once, which
+     * selects in O(1) time.
+     *
      * @param map key - items to be selected, value - probabilities to be selected
      * @param <T> the type of the items
-     * @return the selected item
+     * @return the selected item, or null if the probabilities add up to less than 1 and none is selected
+     * @see WeightedSampler
      */
     public static <T> T selectByChance(Map<T, Double> map) {
-        double r = Math.random();
+        double r = ThreadLocalRandom.current().nextDouble();
         double low = 0;
         for (Map.Entry<T, Double> entry : map.entrySet()) {
             double high = low + entry.getValue();
@@ -0,0 +1,226 @@
+package net.ivanhjc.utility.data;
+
+import java.util.*;
+
+/**
+ * Replaces all occurrences of many search strings at once, in a single left-to-right pass over the text with an
+ * Aho–Corasick automaton built once from the search strings. For example:
+ * <pre>
+ * {@code
+ * MultiReplacer replacer = MultiReplacer.compile(placeholders);
+ * String code = replacer.replace(template);
+ * }
+ * </pre>
+ * Where matches overlap, the one which starts first wins, and of the matches which start at the same position the
+ * longest wins, e.g. with "ab", "abc" and "bcd" the text "abcd" is replaced at "abc". The replacements are not searched
+ * again. A replacer is immutable and can be shared by threads.
+ *
+ * @see StringUtils#replace(StringBuilder, Map)
+ */
+public class MultiReplacer {
+    /**
+     * The labels of the transitions of each state to its children in the trie, sorted for binary search
+     */
+    private final char[][] labels;
+    /**
+     * The child each transition leads to
+     */
+    private final int[][] targets;
+    /**
+     * The state of the longest proper suffix of the string of each state which is also a prefix of a search string
+     */
+    private final int[] fail;
+    /**
+     * The length of the string of each state
+     */
+    private final int[] depth;
+    /**
+     * The index of the longest search string which is a suffix of the string of each state, -1 if there is none
+     */
+    private final int[] output;
+    private final String[] searches;
+    private final String[] replacements;
+
+    private MultiReplacer(Map<String, String> map) {
+        searches = new String[map.size()];
+        replacements = new String[map.size()];
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<Integer> depths = new ArrayList<>();
+        List<Integer> terminals = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        depths.add(0);
+        terminals.add(-1);
+
+        int index = 0;
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            String search = entry.getKey();
+            if (search == null || search.isEmpty() || entry.getValue() == null)
+                throw new IllegalArgumentException("The search strings should not be empty and the replacements should not be null: " + search + " -> " + entry.getValue());
+            int state = 0;
+            for (int i = 0; i < search.length(); i++) {
+                Integer next = trie.get(state).get(search.charAt(i));
+                if (next == null) {
+                    next = trie.size();
+                    trie.get(state).put(search.charAt(i), next);
+                    trie.add(new TreeMap<>());
+                    depths.add(i + 1);
+                    terminals.add(-1);
+                }
+                state = next;
+            }
+            terminals.set(state, index);
+            searches[index] = search;
+            replacements[index++] = entry.getValue();
+        }
+
+        int states = trie.size();
+        labels = new char[states][];
+        targets = new int[states][];
+        depth = new int[states];
+        for (int state = 0; state < states; state++) {
+            TreeMap<Character, Integer> children = trie.get(state);
+            labels[state] = new char[children.size()];
+            targets[state] = new int[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> child : children.entrySet()) {
+                labels[state][i] = child.getKey();
+                targets[state][i++] = child.getValue();
+            }
+            depth[state] = depths.get(state);
+        }
+
+        // Breadth first, so the failure of a state is known before the states deeper than it
+        fail = new int[states];
+        output = new int[states];
+        output[0] = -1;
+        Deque<Integer> queue = new ArrayDeque<>();
+        queue.add(0);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = 0; i < labels[state].length; i++) {
+                int child = targets[state][i];
+                if (state != 0) {
+                    int f = fail[state];
+                    int next;
+                    while ((next = child(f, labels[state][i])) == -1 && f != 0) {
+                        f = fail[f];
+                    }
+                    fail[child] = next == -1 ? 0 : next;
+                }
+                output[child] = terminals.get(child) != -1 ? terminals.get(child) : output[fail[child]];
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Build a replacer
+     *
+     * @param replacements key - the search strings, value - their replacements
+     * @throws IllegalArgumentException if a search string is null or empty, or a replacement is null
+     */
+    public static MultiReplacer compile(Map<String, String> replacements) {
+        return new MultiReplacer(replacements);
+    }
+
+    /**
+     * @return the text with all search strings replaced
+     */
+    public String replace(String text) {
+        StringBuilder result = replace(text, null);
+        return result == null ? text : result.toString();
+    }
+
+    /**
+     * Replace all search strings in a string builder
+     *
+     * @return the string builder
+     */
+    public StringBuilder replace(StringBuilder builder) {
+        StringBuilder result = replace(builder, null);
+        if (result != null) {
+            builder.setLength(0);
+            builder.append(result);
+        }
+        return builder;
+    }
+
+    /**
+     * Append the text with all search strings replaced to a string builder
+     *
+     * @return the string builder
+     */
+    public StringBuilder replace(CharSequence text, StringBuilder out) {
+        int length = text.length();
+        // The text up to here is appended or replaced
+        int copied = 0;
+        // The leftmost longest match found so far, which is replaced once no match can start before or at it
+        int matchStart = -1, matchEnd = -1, match = -1;
+        int state = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i < length) {
+                state = next(state, text.charAt(i));
+                int found = output[state];
+                if (found != -1) {
+                    int start = i + 1 - searches[found].length();
+                    // A match ending later from the same start is longer
+                    if (match == -1 || start <= matchStart) {
+                        matchStart = start;
+                        matchEnd = i + 1;
+                        match = found;
+                    }
+                }
+            }
+            // Any later match starts at or after the start of the string of the state
+            if (match != -1 && (i == length || i + 1 - depth[state] > matchStart)) {
+                if (out == null) {
+                    out = new StringBuilder(length + 16);
+                }
+                out.append(text, copied, matchStart).append(replacements[match]);
+                copied = matchEnd;
+                match = -1;
+                // Matches which start inside the replaced text are dropped, search again after it
+                state = 0;
+                i = matchEnd - 1;
+            }
+        }
+        if (out != null) {
+            out.append(text, copied, length);
+        }
+        return out;
+    }
+
+    /**
+     * @return the number of search strings
+     */
+    public int size() {
+        return searches.length;
+    }
+
+    private int next(int state, char c) {
+        while (true) {
+            int next = child(state, c);
+            if (next != -1) {
+                return next;
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = fail[state];
+        }
+    }
+
+    private int child(int state, char c) {
+        char[] keys = labels[state];
+        if (keys.length < 8) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return targets[state][i];
+                }
+            }
+            return -1;
+        }
+        int i = Arrays.binarySearch(keys, c);
+        return i < 0 ? -1 : targets[state][i];
+    }
+}
@@ -0,0 +1,136 @@
+package net.ivanhjc.utility.data;
+
+/**
+ * Scans a string of delimited integers such as "1, 2,3 ,-4" one token at a time, parsing each token straight from the
+ * characters instead of splitting the string by a regex and creating a substring for each token. Whitespace around
+ * the tokens is ignored and blank tokens are skipped. A token is valid if it's an optionally signed sequence of ASCII
+ * digits within the range given to the tokenizer.
+ */
+class NumberTokenizer {
+    private final CharSequence str;
+    private final char delimiter;
+    private final long min;
+    private final long max;
+    private int position;
+    private int tokenStart;
+    private int tokenEnd;
+    private long value;
+    private boolean valid;
+
+    /**
+     * @param min the minimum value of a valid token, e.g. {@link Integer#MIN_VALUE}
+     * @param max the maximum value of a valid token, e.g. {@link Integer#MAX_VALUE}
+     */
+    NumberTokenizer(CharSequence str, char delimiter, long min, long max) {
+        this.str = str;
+        this.delimiter = delimiter;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Move to the next token that isn't blank
+     *
+     * @return false if there are no more tokens
+     */
+    boolean next() {
+        int length = str.length();
+        while (position <= length) {
+            int i = skipWhitespace(position, length);
+            if (i == length || str.charAt(i) == delimiter) {
+                position = i + 1;
+                continue;
+            }
+            tokenStart = i;
+
+            boolean negative = false;
+            char c = str.charAt(i);
+            if (c == '-' || c == '+') {
+                negative = c == '-';
+                i++;
+            }
+            int digitsStart = i;
+            // Accumulate negatively since the magnitude of Long.MIN_VALUE is greater than Long.MAX_VALUE
+            long result = 0;
+            boolean overflow = false;
+            for (; i < length && (c = str.charAt(i)) >= '0' && c <= '9'; i++) {
+                int digit = c - '0';
+                if (result < Long.MIN_VALUE / 10 || result * 10 < Long.MIN_VALUE + digit) {
+                    overflow = true;
+                } else {
+                    result = result * 10 - digit;
+                }
+            }
+            boolean digits = i > digitsStart;
+            tokenEnd = i;
+            i = skipWhitespace(i, length);
+            if (i < length && str.charAt(i) != delimiter) {
+                // Something other than digits, skip the rest of the token
+                while (i < length && str.charAt(i) != delimiter) {
+                    if (!Character.isWhitespace(str.charAt(i))) {
+                        tokenEnd = i + 1;
+                    }
+                    i++;
+                }
+                valid = false;
+            } else if (!digits || overflow || !negative && result == Long.MIN_VALUE) {
+                valid = false;
+            } else {
+                value = negative ? result : -result;
+                valid = value >= min && value <= max;
+            }
+            position = i + 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return whether the current token is a number in the range
+     */
+    boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * @return the value of the current token, only meaningful if it's valid
+     */
+    long getValue() {
+        return value;
+    }
+
+    /**
+     * @return the value of the current token
+     * @throws NumberFormatException if the token isn't valid
+     */
+    long getValidValue() {
+        if (!valid) {
+            throw new NumberFormatException("For input string: \"" + str.subSequence(tokenStart, tokenEnd) + "\"");
+        }
+        return value;
+    }
+
+    /**
+     * @return the maximum number of tokens in a string, one more than the count of delimiters
+     */
+    static int countTokens(CharSequence str, char delimiter) {
+        int count = 1;
+        for (int i = 0; i < str.length(); i++) {
+            if (str.charAt(i) == delimiter) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int skipWhitespace(int i, int length) {
+        while (i < length) {
+            char c = str.charAt(i);
+            if (c == delimiter || !Character.isWhitespace(c)) {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+}
@@ -4,7 +4,6 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -112,6 +111,7 @@ public class NumberUtils {
      * @return the range string
      * @see #inRange(String, double)
      * @see #compareToRange(String, double)
+     * @see RangeSet#getRange(double)
      */
     public static String getRange(String[] ranges, double target) {
         int i = 0, j = ranges.length - 1;
@@ -135,22 +135,10 @@ public class NumberUtils {
      * @param numbers the numbers to count
      * @return the count of each range
      * @see #inRange(String, double)
+     * @see RangeSet#histogram(double...)
      */
     public static Map<String, Integer> getHistogramOfRanges(String[] ranges, double... numbers) {
-        Map<String, Integer> hist = new LinkedHashMap<>();
-        for (String range : ranges) {
-            hist.put(range, 0);
-        }
-        for (double n : numbers) {
-            String range = getRange(ranges, n);
-            if (range == null)
-                range = "Not in any range";
-            Integer count = hist.get(range);
-            if (count == null)
-                count = 0;
-            hist.put(range, count + 1);
-        }
-        return hist;
+        return RangeSet.parse(ranges).histogram(numbers);
     }
 
     /**
@@ -0,0 +1,180 @@
+package net.ivanhjc.utility.data;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * A sorted set of ranges written in the notation of {@link NumberUtils#inRange(String, double)}, such as "[0, 10)",
+ * "(INF, 0)" or "[100, INF)". The range strings are parsed once into arrays of the least and greatest number of each
+ * range, so finding the range of a number is a binary search over doubles instead of parsing the strings at each step
+ * as {@link NumberUtils#getRange(String[], double)} does. For example:
+ * <pre>
+ * {@code
+ * RangeSet ranges = RangeSet.parse("[0, 60)", "[60, 80)", "[80, 100]");
+ * int[] counts = ranges.count(scores);
+ * }
+ * </pre>
+ * The ranges should be in ascending order and not overlap, but there may be gaps between them.
+ */
+public class RangeSet {
+    /**
+     * The key of the numbers that are not in any range in {@link #histogram(double...)}
+     */
+    public static final String NOT_IN_ANY_RANGE = "Not in any range";
+    /**
+     * Arrays shorter than this are counted by a single thread
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private final String[] ranges;
+    /**
+     * The least number in each range. The lower bound of an open range is replaced by the next greater double, so
+     * both open and closed ranges are checked by {@code n >= lows[i]}.
+     */
+    private final double[] lows;
+    /**
+     * The greatest number in each range, the upper bound of an open range replaced by the next smaller double
+     */
+    private final double[] highs;
+
+    private RangeSet(String[] ranges) {
+        this.ranges = ranges.clone();
+        this.lows = new double[ranges.length];
+        this.highs = new double[ranges.length];
+        for (int i = 0; i < ranges.length; i++) {
+            String range = ranges[i].trim();
+            char leftBracket = range.charAt(0);
+            char rightBracket = range.charAt(range.length() - 1);
+            int idx = range.indexOf(',');
+            if (leftBracket != '[' && leftBracket != '(' || rightBracket != ']' && rightBracket != ')' || idx == -1)
+                throw new IllegalArgumentException("The range \"" + ranges[i] + "\" is not formatted correctly. " +
+                        "A range is formatted using the standard mathematical notation, such as [0, 10) or (-1, 9).");
+
+            double low = parseBound(range.substring(1, idx), Double.NEGATIVE_INFINITY);
+            double high = parseBound(range.substring(idx + 1, range.length() - 1), Double.POSITIVE_INFINITY);
+            lows[i] = leftBracket == '[' ? low : Math.nextUp(low);
+            highs[i] = rightBracket == ']' ? high : Math.nextDown(high);
+        }
+    }
+
+    /**
+     * Parse the range strings
+     *
+     * @param ranges the ranges in ascending order
+     * @throws IllegalArgumentException if a range is not formatted correctly
+     */
+    public static RangeSet parse(String... ranges) {
+        return new RangeSet(ranges);
+    }
+
+    /**
+     * @return the number of ranges
+     */
+    public int size() {
+        return ranges.length;
+    }
+
+    /**
+     * @return the range string at the index
+     */
+    public String get(int index) {
+        return ranges[index];
+    }
+
+    /**
+     * Find the range which contains a number in O(log r) time for r ranges. The binary search finds the last range
+     * whose least number is not greater than the number, always halving the length of the search, so the comparison
+     * only picks the half and doesn't branch on random numbers.
+     *
+     * @return the index of the range, or -1 if the number is not in any range
+     */
+    public int indexOf(double n) {
+        if (lows.length == 0) {
+            return -1;
+        }
+        int base = 0;
+        for (int length = lows.length; length > 1; ) {
+            int half = length >>> 1;
+            base = lows[base + half] <= n ? base + half : base;
+            length -= half;
+        }
+        return lows[base] <= n && n <= highs[base] ? base : -1;
+    }
+
+    /**
+     * @return the range string which contains the number, or null if the number is not in any range
+     * @see NumberUtils#getRange(String[], double)
+     */
+    public String getRange(double n) {
+        int i = indexOf(n);
+        return i == -1 ? null : ranges[i];
+    }
+
+    public boolean contains(double n) {
+        return indexOf(n) != -1;
+    }
+
+    /**
+     * Count the numbers in each range. The numbers are split among all processors if there are many of them.
+     *
+     * @param numbers the numbers to count
+     * @return the count of each range, followed by the count of the numbers not in any range, so the array is one
+     * longer than the number of ranges
+     */
+    public int[] count(double... numbers) {
+        int parts = numbers.length < PARALLEL_THRESHOLD ? 1 : ForkJoinPool.getCommonPoolParallelism();
+        if (parts < 2) {
+            return count(numbers, 0, numbers.length);
+        }
+        int chunk = (numbers.length + parts - 1) / parts;
+        return IntStream.range(0, parts).parallel()
+                .mapToObj(part -> count(numbers, part * chunk, Math.min(numbers.length, part * chunk + chunk)))
+                .reduce((a, b) -> {
+                    for (int i = 0; i < a.length; i++) {
+                        a[i] += b[i];
+                    }
+                    return a;
+                }).orElseThrow(IllegalStateException::new);
+    }
+
+    /**
+     * Count the numbers in each range as {@link NumberUtils#getHistogramOfRanges(String[], double...)} does
+     *
+     * @param numbers the numbers to count
+     * @return the count of each range in the order of the ranges, followed by the count of {@link #NOT_IN_ANY_RANGE}
+     * if there are numbers not in any range
+     */
+    public Map<String, Integer> histogram(double... numbers) {
+        int[] counts = count(numbers);
+        Map<String, Integer> hist = new LinkedHashMap<>();
+        for (int i = 0; i < ranges.length; i++) {
+            hist.merge(ranges[i], counts[i], Integer::sum);
+        }
+        if (counts[ranges.length] > 0) {
+            hist.merge(NOT_IN_ANY_RANGE, counts[ranges.length], Integer::sum);
+        }
+        return hist;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(ranges);
+    }
+
+    private int[] count(double[] numbers, int from, int to) {
+        int[] counts = new int[ranges.length + 1];
+        for (int i = from; i < to; i++) {
+            int idx = indexOf(numbers[i]);
+            counts[idx == -1 ? ranges.length : idx]++;
+        }
+        return counts;
+    }
+
+    private static double parseBound(String bound, double infinity) {
+        bound = bound.trim();
+        return bound.equals("INF") ? infinity : Double.parseDouble(bound);
+    }
+}
@@ -0,0 +1,393 @@
+package net.ivanhjc.utility.data;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The sorting algorithms behind the sort methods of {@link ListUtils}. Ranges are half-open, from inclusive and to
+ * exclusive, unlike the public methods of {@link ListUtils} which take inclusive bounds.
+ */
+class Sorting {
+    /**
+     * Ranges shorter than this are sorted by insertion sort
+     */
+    private static final int INSERTION_THRESHOLD = 32;
+    /**
+     * Arrays shorter than this are sorted by {@link #introSort(int[], int, int)} in {@link ListUtils#sort(int[])},
+     * since the passes of radix sort over the counts don't pay off for them
+     */
+    static final int RADIX_THRESHOLD = 1 << 10;
+    /**
+     * Ranges shorter than this are sorted or merged by a single task in the parallel merge sort
+     */
+    private static final int MIN_PARALLEL_GRAIN = 1 << 13;
+
+    /**
+     * Sort a range by quicksort with the median of three as the pivot, switching to heapsort for a range that has
+     * been partitioned more than 2*log2(n) times, so the worst case is O(n log n) instead of O(n^2), and to insertion
+     * sort for short ranges
+     */
+    static void introSort(int[] a, int from, int to) {
+        introSort(a, from, to, 2 * (32 - Integer.numberOfLeadingZeros(to - from)));
+    }
+
+    private static void introSort(int[] a, int from, int to, int depth) {
+        while (to - from > INSERTION_THRESHOLD) {
+            if (depth-- == 0) {
+                heapSort(a, from, to);
+                return;
+            }
+            int split = partition(a, from, to);
+            // Recurse into the shorter part and loop on the longer one to bound the stack depth by log2(n)
+            if (split + 1 - from < to - split - 1) {
+                introSort(a, from, split + 1, depth);
+                from = split + 1;
+            } else {
+                introSort(a, split + 1, to, depth);
+                to = split + 1;
+            }
+        }
+        insertionSort(a, from, to);
+    }
+
+    /**
+     * Hoare partition around the median of the first, middle and last numbers. Numbers equal to the pivot are spread
+     * over both parts, so ranges with many duplicates are still split in halves.
+     *
+     * @return the last index of the left part, which is not empty and neither is the right part
+     */
+    private static int partition(int[] a, int from, int to) {
+        int mid = (from + to) >>> 1;
+        if (a[mid] < a[from]) {
+            swap(a, mid, from);
+        }
+        if (a[to - 1] < a[from]) {
+            swap(a, to - 1, from);
+        }
+        if (a[to - 1] < a[mid]) {
+            swap(a, to - 1, mid);
+        }
+        int pivot = a[mid];
+        int i = from - 1, j = to;
+        while (true) {
+            do {
+                i++;
+            } while (a[i] < pivot);
+            do {
+                j--;
+            } while (a[j] > pivot);
+            if (i >= j) {
+                return j;
+            }
+            swap(a, i, j);
+        }
+    }
+
+    static void heapSort(int[] a, int from, int to) {
+        int n = to - from;
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            siftDown(a, from, i, n);
+        }
+        for (int i = n - 1; i > 0; i--) {
+            swap(a, from, from + i);
+            siftDown(a, from, 0, i);
+        }
+    }
+
+    private static void siftDown(int[] a, int offset, int i, int n) {
+        int x = a[offset + i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n) {
+                break;
+            }
+            if (child + 1 < n && a[offset + child + 1] > a[offset + child]) {
+                child++;
+            }
+            if (a[offset + child] <= x) {
+                break;
+            }
+            a[offset + i] = a[offset + child];
+            i = child;
+        }
+        a[offset + i] = x;
+    }
+
+    static void insertionSort(int[] a, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            int x = a[i];
+            int j = i - 1;
+            while (j >= from && a[j] > x) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = x;
+        }
+    }
+
+    /**
+     * Sort a range by top-down merge sort. Only the left half of a range is copied out before it's merged back, so
+     * the buffer needs half the length of the range and is allocated once by the caller.
+     *
+     * @param buffer at least half as long as the range
+     */
+    static void mergeSort(int[] a, int from, int to, int[] buffer) {
+        if (to - from <= INSERTION_THRESHOLD) {
+            insertionSort(a, from, to);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(a, from, mid, buffer);
+        mergeSort(a, mid, to, buffer);
+        if (a[mid - 1] <= a[mid]) {
+            return;
+        }
+        int leftLength = mid - from;
+        System.arraycopy(a, from, buffer, 0, leftLength);
+        int i = 0, j = mid, k = from;
+        while (i < leftLength && j < to) {
+            a[k++] = a[j] < buffer[i] ? a[j++] : buffer[i++];
+        }
+        // What's left of the right half is already in place
+        System.arraycopy(buffer, i, a, k, leftLength - i);
+    }
+
+    /**
+     * Sort an array by merge sort over the common fork-join pool. The halves of a range are sorted in parallel into
+     * the buffer and merged back, or the other way around, so the numbers move between the array and the buffer once
+     * per level and the buffer is the only memory allocated. Large merges are split in parallel too by binary search.
+     *
+     * @param buffer at least as long as the array
+     */
+    static void parallelMergeSort(int[] a, int[] buffer) {
+        int grain = Math.max(MIN_PARALLEL_GRAIN, a.length / (ForkJoinPool.getCommonPoolParallelism() * 4));
+        ForkJoinPool.commonPool().invoke(new MergeSortTask(a, buffer, 0, a.length, true, grain));
+    }
+
+    private static class MergeSortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] a;
+        private final int[] buffer;
+        private final int from;
+        private final int to;
+        /**
+         * Whether the sorted range should end up in the array or in the buffer
+         */
+        private final boolean intoArray;
+        private final int grain;
+
+        MergeSortTask(int[] a, int[] buffer, int from, int to, boolean intoArray, int grain) {
+            this.a = a;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.intoArray = intoArray;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                introSort(a, from, to);
+                if (!intoArray) {
+                    System.arraycopy(a, from, buffer, from, to - from);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new MergeSortTask(a, buffer, from, mid, !intoArray, grain),
+                    new MergeSortTask(a, buffer, mid, to, !intoArray, grain));
+            int[] src = intoArray ? buffer : a;
+            int[] dst = intoArray ? a : buffer;
+            if (src[mid - 1] <= src[mid]) {
+                System.arraycopy(src, from, dst, from, to - from);
+            } else {
+                new MergeTask(src, from, mid, mid, to, dst, from, grain).compute();
+            }
+        }
+    }
+
+    /**
+     * Merge two sorted ranges of one array into another array. A long merge is split at the middle number of the
+     * longer range and where that number goes in the shorter range, and the two halves are merged in parallel.
+     */
+    private static class MergeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] src;
+        private final int from1, to1, from2, to2;
+        private final int[] dst;
+        private final int offset;
+        private final int grain;
+
+        MergeTask(int[] src, int from1, int to1, int from2, int to2, int[] dst, int offset, int grain) {
+            this.src = src;
+            this.from1 = from1;
+            this.to1 = to1;
+            this.from2 = from2;
+            this.to2 = to2;
+            this.dst = dst;
+            this.offset = offset;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            int length1 = to1 - from1, length2 = to2 - from2;
+            if (length1 + length2 <= grain || length1 == 0 || length2 == 0) {
+                merge(src, from1, to1, from2, to2, dst, offset);
+                return;
+            }
+            int mid1, mid2;
+            if (length1 >= length2) {
+                mid1 = (from1 + to1) >>> 1;
+                mid2 = lowerBound(src, from2, to2, src[mid1]);
+            } else {
+                mid2 = (from2 + to2) >>> 1;
+                mid1 = lowerBound(src, from1, to1, src[mid2]);
+            }
+            invokeAll(new MergeTask(src, from1, mid1, from2, mid2, dst, offset, grain),
+                    new MergeTask(src, mid1, to1, mid2, to2, dst, offset + (mid1 - from1) + (mid2 - from2), grain));
+        }
+    }
+
+    private static void merge(int[] src, int from1, int to1, int from2, int to2, int[] dst, int k) {
+        int i = from1, j = from2;
+        while (i < to1 && j < to2) {
+            dst[k++] = src[j] < src[i] ? src[j++] : src[i++];
+        }
+        System.arraycopy(src, i, dst, k, to1 - i);
+        System.arraycopy(src, j, dst, k + to1 - i, to2 - j);
+    }
+
+    /**
+     * @return the first index of the sorted range whose number is not less than the key, or to if there is none
+     */
+    private static int lowerBound(int[] a, int from, int to, int key) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (a[mid] < key) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Sort an array by least significant digit radix sort with 8-bit digits, 4 counting passes after one pass that
+     * counts all digits. A digit that is the same for all numbers is skipped. The sign bit is flipped in the last
+     * digit so that negative numbers come first.
+     *
+     * @param buffer at least as long as the array
+     */
+    static void radixSort(int[] a, int[] buffer) {
+        int n = a.length;
+        int[][] counts = new int[4][257];
+        for (int x : a) {
+            counts[0][(x & 0xFF) + 1]++;
+            counts[1][((x >>> 8) & 0xFF) + 1]++;
+            counts[2][((x >>> 16) & 0xFF) + 1]++;
+            counts[3][((x >>> 24) ^ 0x80) + 1]++;
+        }
+        int[] src = a, dst = buffer;
+        for (int digit = 0; digit < 4; digit++) {
+            int[] count = counts[digit];
+            if (isSingleBucket(count, n)) {
+                continue;
+            }
+            for (int i = 1; i < 257; i++) {
+                count[i] += count[i - 1];
+            }
+            int shift = digit * 8;
+            int flip = digit == 3 ? 0x80 : 0;
+            for (int i = 0; i < n; i++) {
+                int x = src[i];
+                dst[count[((x >>> shift) & 0xFF) ^ flip]++] = x;
+            }
+            int[] t = src;
+            src = dst;
+            dst = t;
+        }
+        if (src != a) {
+            System.arraycopy(src, 0, a, 0, n);
+        }
+    }
+
+    /**
+     * @see #radixSort(int[], int[])
+     */
+    static void radixSort(long[] a, long[] buffer) {
+        int n = a.length;
+        int[][] counts = new int[8][257];
+        for (long x : a) {
+            for (int digit = 0; digit < 7; digit++) {
+                counts[digit][(int) ((x >>> (digit * 8)) & 0xFF) + 1]++;
+            }
+            counts[7][(int) ((x >>> 56) ^ 0x80) + 1]++;
+        }
+        long[] src = a, dst = buffer;
+        for (int digit = 0; digit < 8; digit++) {
+            int[] count = counts[digit];
+            if (isSingleBucket(count, n)) {
+                continue;
+            }
+            for (int i = 1; i < 257; i++) {
+                count[i] += count[i - 1];
+            }
+            int shift = digit * 8;
+            int flip = digit == 7 ? 0x80 : 0;
+            for (int i = 0; i < n; i++) {
+                long x = src[i];
+                dst[count[(int) ((x >>> shift) & 0xFF) ^ flip]++] = x;
+            }
+            long[] t = src;
+            src = dst;
+            dst = t;
+        }
+        if (src != a) {
+            System.arraycopy(src, 0, a, 0, n);
+        }
+    }
+
+    /**
+     * @return true if the array is in ascending order, which takes only a few comparisons for an array that isn't
+     */
+    static boolean isSorted(int[] a) {
+        for (int i = 1; i < a.length; i++) {
+            if (a[i - 1] > a[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @see #isSorted(int[])
+     */
+    static boolean isSorted(long[] a) {
+        for (int i = 1; i < a.length; i++) {
+            if (a[i - 1] > a[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSingleBucket(int[] count, int n) {
+        for (int i = 1; i < 257; i++) {
+            if (count[i] != 0) {
+                return count[i] == n;
+            }
+        }
+        return true;
+    }
+
+    private static void swap(int[] a, int i, int j) {
+        int t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+}
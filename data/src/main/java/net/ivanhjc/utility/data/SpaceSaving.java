@@ -0,0 +1,227 @@
+package net.ivanhjc.utility.data;
+
+import java.util.*;
+
+/**
+ * Finds the most frequent strings of a stream with a fixed number of counters, by the Space-Saving algorithm. While
+ * there are free counters each new string takes one. After that a new string takes over the counter with the least
+ * count, and its count starts from that count, which is kept as the error of the new string. So a count is never less
+ * than the true count and exceeds it by at most its error, and every string more frequent than 1/capacity of the total
+ * count is sure to have a counter. For example:
+ * <pre>
+ * {@code
+ * SpaceSaving orders = new SpaceSaving(1000);
+ * orders.add("A1");
+ * Map<String, Long> top = orders.top(10);
+ * }
+ * </pre>
+ * The counters are kept in a min-heap indexed by string, so adding a string takes O(log capacity) time.
+ *
+ * @see <a href="https://www.cs.ucsb.edu/sites/default/files/documents/2005-23.pdf">Efficient Computation of Frequent and Top-k Elements in Data Streams</a>
+ */
+public class SpaceSaving {
+    private final int capacity;
+    private final String[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private int size;
+    /**
+     * The position of each string in the heap, rebuilt from the heap when it's missing, e.g. after deserialization
+     */
+    private transient Map<String, Integer> positions;
+
+    /**
+     * @param capacity the number of counters, which should be a few times more than the number of top strings wanted
+     */
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity should be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.keys = new String[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.positions = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * Add a string once, null included
+     */
+    public void add(String value) {
+        add(value, 1);
+    }
+
+    /**
+     * Add a string a number of times
+     */
+    public void add(String value, long count) {
+        add(value, count, 0);
+    }
+
+    /**
+     * @return the count of the string, 0 if it has no counter
+     */
+    public long count(String value) {
+        Integer i = positions().get(value);
+        return i == null ? 0 : counts[i];
+    }
+
+    /**
+     * @return how much the count of the string may exceed its true count, 0 if it has no counter
+     */
+    public long error(String value) {
+        Integer i = positions().get(value);
+        return i == null ? 0 : errors[i];
+    }
+
+    /**
+     * @return the least count of the counters if all of them are taken, otherwise 0. A string without a counter
+     * occurred at most this many times.
+     */
+    public long getMinCount() {
+        return size == capacity ? counts[0] : 0;
+    }
+
+    /**
+     * @return the number of strings counted, at most the capacity
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Get the n strings with the greatest counts
+     *
+     * @return the strings and their counts in descending order of count
+     */
+    public Map<String, Long> top(int n) {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(counts[b], counts[a]));
+        Map<String, Long> top = new LinkedHashMap<>();
+        for (int i = 0; i < Math.min(n, size); i++) {
+            top.put(keys[order[i]], counts[order[i]]);
+        }
+        return top;
+    }
+
+    /**
+     * Add the counters of another summary to this one, after which this summary is the summary of both streams. A
+     * string missing from a summary whose counters are all taken may have occurred up to the least count of that
+     * summary, so that count is added to the count and the error of the string.
+     *
+     * @return this summary
+     */
+    public SpaceSaving merge(SpaceSaving other) {
+        long min = getMinCount(), otherMin = other.getMinCount();
+        Map<String, long[]> merged = new HashMap<>((size + other.size) * 2);
+        for (int i = 0; i < size; i++) {
+            merged.put(keys[i], new long[]{counts[i] + otherMin, errors[i] + otherMin});
+        }
+        for (int i = 0; i < other.size; i++) {
+            long[] entry = merged.get(other.keys[i]);
+            if (entry == null) {
+                merged.put(other.keys[i], new long[]{other.counts[i] + min, other.errors[i] + min});
+            } else {
+                entry[0] += other.counts[i] - otherMin;
+                entry[1] += other.errors[i] - otherMin;
+            }
+        }
+        List<Map.Entry<String, long[]>> entries = new ArrayList<>(merged.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+        Arrays.fill(keys, null);
+        size = 0;
+        positions = new HashMap<>(capacity * 2);
+        for (Map.Entry<String, long[]> entry : entries.subList(0, Math.min(capacity, entries.size()))) {
+            add(entry.getKey(), entry.getValue()[0], entry.getValue()[1]);
+        }
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "SpaceSaving{capacity=" + capacity + ", top=" + top(10) + "}";
+    }
+
+    private void add(String value, long count, long error) {
+        Map<String, Integer> positions = positions();
+        Integer i = positions.get(value);
+        if (i != null) {
+            counts[i] += count;
+            errors[i] += error;
+            siftDown(i);
+        } else if (size < capacity) {
+            keys[size] = value;
+            counts[size] = count;
+            errors[size] = error;
+            positions.put(value, size);
+            siftUp(size++);
+        } else {
+            // Take over the counter with the least count at the root
+            positions.remove(keys[0]);
+            keys[0] = value;
+            errors[0] = counts[0] + error;
+            counts[0] += count;
+            positions.put(value, 0);
+            siftDown(0);
+        }
+    }
+
+    private Map<String, Integer> positions() {
+        if (positions == null) {
+            positions = new HashMap<>(capacity * 2);
+            for (int i = 0; i < size; i++) {
+                positions.put(keys[i], i);
+            }
+        }
+        return positions;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (counts[parent] <= counts[i]) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && counts[child + 1] < counts[child]) {
+                child++;
+            }
+            if (counts[i] <= counts[child]) {
+                break;
+            }
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void swap(int i, int j) {
+        String key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        long count = counts[i];
+        counts[i] = counts[j];
+        counts[j] = count;
+        long error = errors[i];
+        errors[i] = errors[j];
+        errors[j] = error;
+        positions.put(keys[i], i);
+        positions.put(keys[j], j);
+    }
+}
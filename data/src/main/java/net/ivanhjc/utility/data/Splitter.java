@@ -0,0 +1,309 @@
+package net.ivanhjc.utility.data;
+
+import java.nio.CharBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits strings by a delimiter and a {@link SplitRegex}, the same as {@link String#split(String)} with the regular
+ * expression {@link StringUtils#split(String, String, SplitRegex)} formats, but without formatting and compiling the
+ * regular expression for each string. For example:
+ * <pre>
+ * {@code
+ * Splitter splitter = Splitter.of("\\|", SplitRegex.DROPPED);
+ * for (String line : lines) {
+ *     String[] cells = splitter.split(line, true);
+ * }
+ * }
+ * </pre>
+ * A delimiter which stands for itself, i.e. has no other special characters of regular expressions than the escaped
+ * ones, is searched for as a plain string. Any other delimiter is compiled into a pattern once. The splitters of the
+ * delimiters in use are cached, and a splitter can be shared by threads.
+ */
+public class Splitter {
+    private static final int CACHE_SIZE = 256;
+    private static final Map<SplitRegex, ConcurrentHashMap<String, Splitter>> CACHES = new EnumMap<>(SplitRegex.class);
+
+    static {
+        for (SplitRegex regex : SplitRegex.values()) {
+            CACHES.put(regex, new ConcurrentHashMap<>());
+        }
+    }
+
+    private final SplitRegex regex;
+    /**
+     * The delimiter unescaped if it stands for itself, otherwise null
+     */
+    private final String literal;
+    private final Pattern pattern;
+
+    private Splitter(String delimiter, SplitRegex regex) {
+        this.regex = regex;
+        this.literal = unescape(delimiter);
+        this.pattern = literal == null ? Pattern.compile(String.format(regex.regex, delimiter)) : null;
+    }
+
+    /**
+     * Get the splitter of a delimiter
+     *
+     * @param delimiter the delimiter to use, as a regular expression, e.g. "\\|" and "\\\\u"
+     * @param regex     how the delimiter is kept
+     * @see SplitRegex
+     */
+    public static Splitter of(String delimiter, SplitRegex regex) {
+        ConcurrentHashMap<String, Splitter> cache = CACHES.get(regex);
+        Splitter splitter = cache.get(delimiter);
+        if (splitter == null) {
+            splitter = new Splitter(delimiter, regex);
+            if (cache.size() >= CACHE_SIZE) {
+                cache.clear();
+            }
+            cache.put(delimiter, splitter);
+        }
+        return splitter;
+    }
+
+    /**
+     * @return the split results, as {@link String#split(String)} returns them, i.e. trailing empty strings dropped
+     */
+    public String[] split(String str) {
+        return split(str, false);
+    }
+
+    /**
+     * @param trim whether to trim each substring
+     * @return the split results
+     */
+    public String[] split(String str, boolean trim) {
+        Parts parts = parts(str);
+        String[] strs = new String[parts.size()];
+        for (int i = 0; i < strs.length; i++) {
+            strs[i] = trim ? parts.trimmed(i) : str.substring(parts.start(i), parts.end(i));
+        }
+        return strs;
+    }
+
+    /**
+     * @return the trimmed split results which aren't blank
+     */
+    public String[] splitAndTrim(String str) {
+        Parts parts = parts(str);
+        String[] strs = new String[parts.size()];
+        int n = 0;
+        for (int i = 0; i < strs.length; i++) {
+            String trimmed = parts.trimmed(i);
+            if (!trimmed.isEmpty()) {
+                strs[n++] = trimmed;
+            }
+        }
+        return n == strs.length ? strs : Arrays.copyOf(strs, n);
+    }
+
+    /**
+     * Split a string without copying the substrings
+     *
+     * @return the substrings as views of the string
+     */
+    public Parts parts(CharSequence str) {
+        Parts parts = new Parts(str);
+        if (pattern != null) {
+            Matcher matcher = pattern.matcher(str);
+            while (matcher.find()) {
+                parts.match(matcher.start(), matcher.end());
+            }
+            return parts.finish();
+        }
+
+        int length = literal.length();
+        switch (regex) {
+            case DROPPED:
+                for (int i = indexOf(str, literal, 0); i != -1; i = indexOf(str, literal, i + length)) {
+                    parts.match(i, i + length);
+                }
+                break;
+            case AHEAD:
+                // The delimiters may overlap since the matches are empty
+                for (int i = indexOf(str, literal, 0); i != -1; i = indexOf(str, literal, i + 1)) {
+                    parts.match(i, i);
+                }
+                break;
+            case BEHIND:
+                for (int i = indexOf(str, literal, 0); i != -1; i = indexOf(str, literal, i + 1)) {
+                    parts.match(i + length, i + length);
+                }
+                break;
+            case INDEPENDENT:
+                // Split before and after each delimiter, in order, where the ends of the delimiters lag behind their starts
+                int[] ends = new int[8];
+                int head = 0, tail = 0;
+                for (int i = indexOf(str, literal, 0); ; i = indexOf(str, literal, i + 1)) {
+                    while (head < tail && (i == -1 || ends[head] <= i)) {
+                        if (ends[head] < i || i == -1) {
+                            parts.match(ends[head], ends[head]);
+                        }
+                        head++;
+                    }
+                    if (i == -1) {
+                        break;
+                    }
+                    parts.match(i, i);
+                    if (tail == ends.length) {
+                        System.arraycopy(ends, head, ends, 0, tail - head);
+                        tail -= head;
+                        head = 0;
+                        if (tail == ends.length) {
+                            ends = Arrays.copyOf(ends, ends.length * 2);
+                        }
+                    }
+                    ends[tail++] = i + length;
+                }
+                break;
+        }
+        return parts.finish();
+    }
+
+    /**
+     * The substrings of a split string, which are copied only when asked for as strings
+     */
+    public static class Parts extends AbstractList<CharSequence> {
+        private final CharSequence str;
+        /**
+         * The start and end of each substring in turn
+         */
+        private int[] bounds = new int[16];
+        private int size;
+        /**
+         * The end of the last match
+         */
+        private int index;
+
+        private Parts(CharSequence str) {
+            this.str = str;
+        }
+
+        @Override
+        public CharSequence get(int i) {
+            return CharBuffer.wrap(str, start(i), end(i));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return the index of the first char of a substring in the string
+         */
+        public int start(int i) {
+            checkIndex(i);
+            return bounds[2 * i];
+        }
+
+        /**
+         * @return the index after the last char of a substring in the string
+         */
+        public int end(int i) {
+            checkIndex(i);
+            return bounds[2 * i + 1];
+        }
+
+        /**
+         * @return a substring without leading and trailing whitespace, as {@link String#trim()} removes
+         */
+        public String trimmed(int i) {
+            int start = start(i), end = end(i);
+            while (start < end && str.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && str.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            return str.subSequence(start, end).toString();
+        }
+
+        /**
+         * Take a match of the delimiter the way {@link Pattern#split(CharSequence)} does, where an empty match at the
+         * start of the string doesn't make an empty leading substring
+         */
+        private void match(int start, int end) {
+            if (index == 0 && start == 0 && end == 0) {
+                return;
+            }
+            add(index, start);
+            index = end;
+        }
+
+        private Parts finish() {
+            // If there's no match the string is the only substring, otherwise the trailing empty substrings are dropped
+            add(index, str.length());
+            if (index > 0) {
+                while (size > 0 && bounds[2 * size - 2] == bounds[2 * size - 1]) {
+                    size--;
+                }
+            }
+            return this;
+        }
+
+        private void add(int start, int end) {
+            if (2 * size == bounds.length) {
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            }
+            bounds[2 * size] = start;
+            bounds[2 * size + 1] = end;
+            size++;
+        }
+
+        private void checkIndex(int i) {
+            if (i < 0 || i >= size) {
+                throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+            }
+        }
+    }
+
+    /**
+     * @return the string a regular expression matches if it has no special characters but escaped ones, otherwise null
+     */
+    static String unescape(String regex) {
+        StringBuilder builder = new StringBuilder(regex.length());
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                // A backslash before a letter or digit starts a character class, a quotation or a back reference
+                if (++i == regex.length() || Character.isLetterOrDigit(regex.charAt(i))) {
+                    return null;
+                }
+                builder.append(regex.charAt(i));
+            } else if (".$|()[]{}^?*+".indexOf(c) != -1) {
+                return null;
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.length() == 0 ? null : builder.toString();
+    }
+
+    private static int indexOf(CharSequence str, String search, int from) {
+        if (str instanceof String) {
+            return ((String) str).indexOf(search, from);
+        }
+        char first = search.charAt(0);
+        for (int i = from, max = str.length() - search.length(); i <= max; i++) {
+            if (str.charAt(i) != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < search.length() && str.charAt(i + j) == search.charAt(j)) {
+                j++;
+            }
+            if (j == search.length()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
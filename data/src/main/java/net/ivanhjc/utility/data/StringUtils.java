@@ -1,5 +1,8 @@
 package net.ivanhjc.utility.data;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.net.URL;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
@@ -18,28 +21,27 @@ public class StringUtils extends org.apache.commons.lang3.StringUtils {
      * @see Character#isTitleCase(char)
      */
     public static String toTitleCase(String str) {
-        return str == null || str.isEmpty() ? str
-                : str.length() == 1 ? str.toUpperCase()
-                : str.substring(0, 1).toUpperCase().concat(str.substring(1).toLowerCase());
+        return CaseConversion.TITLE.apply(str);
     }
 
     /**
-     * Convert a string from camel casing (e.g. "wordFamily" or "WordFamily") to snake casing (e.g. "word_family"). Null
-     * or empty strings are not accepted.
+     * Convert strings to capitalized form
      *
-     * @param str The string to convert
+     * @return a new array of the converted strings
+     * @see #toTitleCase(String)
+     */
+    public static String[] toTitleCase(String[] arr) {
+        return CaseConversion.TITLE.apply(arr);
+    }
+
+    /**
+     * Convert a string from camel casing (e.g. "wordFamily" or "WordFamily") to snake casing (e.g. "word_family").
+     *
+     * @param str The string to convert, may be null or empty, returns as is in these cases
      * @return The converted string
      */
     public static String camelToSnake(String str) {
-        String[] strings = str.split("(?=[A-Z])");
-        StringBuilder stringBuilder = new StringBuilder();
-        for (int i = 0; i < strings.length; i++) {
-            if (i < strings.length - 1)
-                stringBuilder.append(strings[i].toLowerCase().concat("_"));
-            else
-                stringBuilder.append(strings[i].toLowerCase());
-        }
-        return stringBuilder.toString();
+        return CaseConversion.CAMEL_TO_SNAKE.apply(str);
     }
 
     /**
@@ -53,23 +55,54 @@ public class StringUtils extends org.apache.commons.lang3.StringUtils {
      * @return the converted string
      */
     public static String snakeToCamel(String str) {
-        if (str == null || str.trim().isEmpty())
-            return str;
+        return CaseConversion.SNAKE_TO_CAMEL.apply(str);
+    }
 
-        String[] parts = str.split("_");
-        StringBuilder builder = new StringBuilder();
-        for (String part : parts) {
-            builder.append(toTitleCase(part));
-        }
-        return builder.toString();
+    /**
+     * Converts a string from snake casing to camel casing where every word but the first one is capitalized if the result
+     * is not capitalized, e.g.
+     * <pre>{@code
+     * word_family, Word_FamILy -> wordFamily
+     * }
+     * </pre>
+     *
+     * @param str         may be null or empty, returns as is in such cases
+     * @param capitalized whether the first word is capitalized
+     * @return the converted string
+     */
+    public static String snakeToCamel(String str, boolean capitalized) {
+        return (capitalized ? CaseConversion.SNAKE_TO_CAMEL : CaseConversion.SNAKE_TO_LOWER_CAMEL).apply(str);
     }
 
+    /**
+     * Convert strings from camel casing to snake casing
+     *
+     * @return a new array of the converted strings
+     * @see #camelToSnake(String)
+     */
     public static String[] camelToSnake(String[] arr) {
-        String[] arr1 = new String[arr.length];
-        for (int i = 0; i < arr.length; i++) {
-            arr1[i] = camelToSnake(arr[i]);
-        }
-        return arr1;
+        return CaseConversion.CAMEL_TO_SNAKE.apply(arr);
+    }
+
+    /**
+     * Convert strings from snake casing to camel casing
+     *
+     * @return a new array of the converted strings
+     * @see #snakeToCamel(String)
+     */
+    public static String[] snakeToCamel(String[] arr) {
+        return CaseConversion.SNAKE_TO_CAMEL.apply(arr);
+    }
+
+    /**
+     * Set how many results each of the case conversions keeps to return when it converts the same string again, which
+     * saves converting the same names over and over, e.g. the columns of a table. The results are all dropped once there
+     * are so many. The default is 4096, and 0 turns the caches off.
+     *
+     * @param size the number of results kept by each conversion
+     */
+    public static void setCaseCacheSize(int size) {
+        CaseConversion.setCacheSize(size);
     }
 
     /**
@@ -183,15 +216,19 @@ public class StringUtils extends org.apache.commons.lang3.StringUtils {
     }
 
     /**
-     * Replaces all occurrences of given strings (searches) in a string with corresponding replacements provided with a map
+     * Replaces all occurrences of given strings (searches) in a string with corresponding replacements provided with a map,
+     * in one pass over the string. Where occurrences overlap, the one which starts first wins, and of those which start
+     * at the same position the longest wins. To replace the same strings in many strings, compile them once with
+     * {@link MultiReplacer#compile(Map)} and reuse the replacer.
      *
      * @param builder the original string
      * @param map     the search-replacement mapping
      * @return the altered string of the original
      */
     public static StringBuilder replace(StringBuilder builder, Map<String, String> map) {
-        // TODO: 2019/4/8
-        return null;
+        if (map.isEmpty())
+            return builder;
+        return MultiReplacer.compile(map).replace(builder);
     }
 
     /**
@@ -202,20 +239,20 @@ public class StringUtils extends org.apache.commons.lang3.StringUtils {
      * @param regex     the regular expression for splitting
      * @return the split results
      * @see SplitRegex
+     * @see Splitter
      */
     public static String[] split(String str, String delimiter, SplitRegex regex) {
-        return str.split(String.format(regex.regex, delimiter));
+        return Splitter.of(delimiter, regex).split(str);
     }
 
+    /**
+     * Splits a string by a specified delimiter and a regular expression, and trims the split results, dropping the blank
+     * ones
+     *
+     * @see #split(String, String, SplitRegex)
+     */
     public static String[] splitAndTrim(String str, String delimiter, SplitRegex regex) {
-        String[] strs = split(str, delimiter, regex);
-        List<String> trimmed = new ArrayList<>();
-        for (String s : strs) {
-            if (s.trim().isEmpty())
-                continue;
-            trimmed.add(s.trim());
-        }
-        return trimmed.toArray(new String[0]);
+        return Splitter.of(delimiter, regex).splitAndTrim(str);
     }
 
     /**
@@ -264,10 +301,10 @@ public class StringUtils extends org.apache.commons.lang3.StringUtils {
      * @return e.g. 1,2,3 -> "1","2","3"
      */
     public static String encloseSubstrings(String str, String delimiter, SplitRegex regex, String encStr, String newDelimiter) {
-        String[] subStrs = split(str, delimiter, regex);
-        StringBuilder builder = new StringBuilder();
-        for (String subStr : subStrs) {
-            builder.append(encStr).append(subStr).append(encStr).append(newDelimiter);
+        Splitter.Parts subStrs = Splitter.of(delimiter, regex).parts(str);
+        StringBuilder builder = new StringBuilder(str.length() + subStrs.size() * (2 * encStr.length() + newDelimiter.length()));
+        for (int i = 0; i < subStrs.size(); i++) {
+            builder.append(encStr).append(str, subStrs.start(i), subStrs.end(i)).append(encStr).append(newDelimiter);
         }
         builder.delete(builder.length() - delimiter.length(), builder.length());
         return builder.toString();
@@ -332,29 +369,69 @@ public class StringUtils extends org.apache.commons.lang3.StringUtils {
      *
      * @param resultSet the data to format
      * @return the formatted string
+     * @see #formatTable(ResultSet, Writer, int)
      */
     public static String formatTable(ResultSet resultSet) throws SQLException {
-        resultSet.last();
-        int rowNum = resultSet.getRow();
-        String[][] table = new String[rowNum + 1][];
-        resultSet.beforeFirst();
+        StringWriter writer = new StringWriter();
+        try {
+            formatTable(resultSet, writer, Integer.MAX_VALUE);
+        } catch (IOException e) {
+            // A StringWriter never throws
+            throw new IllegalStateException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Formats a {@link java.sql.ResultSet} object like a table and writes it to a writer as the rows are read, so the
+     * result set can be forward-only and the rows after the first few are never held in memory. The widths of the
+     * columns are fixed by the headers and the first rows, which are held until the widths are known. A later cell
+     * wider than its column pushes the rest of its row to the right instead of being cut.
+     * <p>
+     * The table is the same as {@link #formatTable(ResultSet)} if sampleRows is not less than the number of rows.
+     *
+     * @param resultSet  the data to format, positioned before its first row
+     * @param writer     where to write the table, which should be buffered
+     * @param sampleRows the number of rows which fix the widths of the columns
+     * @return the number of rows written, excluding the headers
+     */
+    public static long formatTable(ResultSet resultSet, Writer writer, int sampleRows) throws SQLException, IOException {
         ResultSetMetaData rsmd = resultSet.getMetaData();
         int colNum = rsmd.getColumnCount();
         String[] headers = new String[colNum];
         for (int i = 1; i <= colNum; i++) {
             headers[i - 1] = rsmd.getColumnName(i);
         }
-        table[0] = headers;
+        TableLayout layout = new TableLayout(true);
+        List<String[]> sample = new ArrayList<>();
+        List<int[]> sampleWidths = new ArrayList<>();
+        sample.add(headers);
+        sampleWidths.add(layout.measure(headers));
+        boolean more;
+        while ((more = resultSet.next()) && sample.size() <= sampleRows) {
+            String[] row = readRow(resultSet, new String[colNum]);
+            sample.add(row);
+            sampleWidths.add(layout.measure(row));
+        }
 
-        int rowIdx = 1;
-        while (resultSet.next()) {
-            String[] row = new String[colNum];
-            for (int i = 1; i <= colNum; i++) {
-                row[i - 1] = String.valueOf(resultSet.getObject(i));
-            }
-            table[rowIdx++] = row;
+        for (int i = 0; i < sample.size(); i++) {
+            layout.appendRow(writer, sample.get(i), sampleWidths.get(i), null, "", 2);
         }
-        return formatTable(table, colNum, null, 2, true);
+        long rows = sample.size() - 1;
+        sample.clear();
+        int[] cellWidths = new int[colNum];
+        for (String[] row = new String[colNum]; more; more = resultSet.next(), rows++) {
+            readRow(resultSet, row);
+            layout.appendRow(writer, row, layout.measure(row, cellWidths), null, "", 2);
+        }
+        return rows;
+    }
+
+    private static String[] readRow(ResultSet resultSet, String[] row) throws SQLException {
+        for (int i = 1; i <= row.length; i++) {
+            row[i - 1] = String.valueOf(resultSet.getObject(i));
+        }
+        return row;
     }
 
     /**
@@ -371,16 +448,13 @@ public class StringUtils extends org.apache.commons.lang3.StringUtils {
      */
     public static String formatTable(List<String> table, Integer colNum, String oldDel, String newDel, int margin) {
         String[][] tab = new String[table.size()][];
+        Splitter splitter = Splitter.of(escape(oldDel), SplitRegex.DROPPED);
         for (int i = 0; i < table.size(); i++) {
             String line = table.get(i);
             if (line.trim().isEmpty())
                 continue;
 
-            String[] row = split(line, escape(oldDel), SplitRegex.DROPPED);
-            for (int j = 0; j < row.length; j++) {
-                row[j] = row[j].trim();
-            }
-            tab[i] = row;
+            tab[i] = splitter.split(line, true);
         }
         return formatTable(tab, colNum, newDel, margin, true);
     }
@@ -396,60 +470,48 @@ public class StringUtils extends org.apache.commons.lang3.StringUtils {
      * @param ideo      Whether or not consider ideographic characters when calculating the width of each field.
      *                  True so that ideographic characters won't break the fix-width alignment. This does not guarantee
      *                  each field of the same column has exactly the same display width since this also depends on the
-     *                  fonts in use. If a field contains ideographic characters then the width of the field is its
-     *                  length plus the number of spaces produced by subtracting the count of ideographic characters
-     *                  from the maximum length of the column because each ideographic character takes up (approximately)
-     *                  two spaces.
+     *                  fonts in use. Each wide character of East Asian scripts, i.e. CJK ideographs, kana, Hangul and
+     *                  full-width forms, counts as two spaces in the width of a field and any other character as one.
      * @return The formatted table as a StringBuilder object
      */
     public static String formatTable(String[][] table, Integer colNum, String delimiter, int margin, boolean ideo) {
-        List<Integer> colMaxWidths = new ArrayList<>();
-        for (String[] row : table) {
-            for (int i = 0; i < row.length; i++) {
-                int width = row[i].length();
-                if (colMaxWidths.size() < i + 1) {
-                    colMaxWidths.add(width);
-                } else if (colMaxWidths.get(i) < width) {
-                    colMaxWidths.set(i, width);
-                }
+        TableLayout layout = new TableLayout(ideo);
+        int[][] cellWidths = new int[table.length][];
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] != null) {
+                cellWidths[i] = layout.measure(table[i]);
             }
         }
 
         StringBuilder result = new StringBuilder();
         String colDelimiter = StringUtils.isBlank(delimiter) ? "" : delimiter + " ";
-        String margin1 = margin == 0 ? "" : String.format("%" + margin + "s", "");
-        if (colNum == null) {
-            for (String[] row : table) {
-                result.append(colDelimiter);
-                for (int i = 0; i < row.length - 1; i++) {
-                    int width = !ideo ? colMaxWidths.get(i) : (colMaxWidths.get(i) - getIdeogramCount(row[i]));
-                    result.append(String.format("%-" + (width == 0 ? 1 : width) + "s", row[i])).append(margin1).append(colDelimiter);
-                }
-                result.append(row[row.length - 1]).append("\n");
-            }
-        } else {
-            for (String[] row : table) {
-                result.append(colDelimiter);
-                for (int i = 0; i < colNum; i++) {
-                    if (i < colNum - 1) {
-                        String field = i >= row.length ? "" : row[i];
-                        int width = !ideo ? colMaxWidths.get(i) : (colMaxWidths.get(i) - getIdeogramCount(field));
-                        result.append(String.format("%-" + (width == 0 ? 1 : width) + "s", field)).append(margin1).append(colDelimiter);
-                    } else {
-                        StringBuilder rest = new StringBuilder();
-                        for (int j = i; j < row.length; j++) {
-                            rest.append(row[j]);
-                        }
-                        result.append(rest).append("\n");
-                    }
+        try {
+            for (int i = 0; i < table.length; i++) {
+                if (table[i] != null) {
+                    layout.appendRow(result, table[i], cellWidths[i], colNum, colDelimiter, margin);
                 }
             }
+        } catch (IOException e) {
+            // A StringBuilder never throws
+            throw new IllegalStateException(e);
         }
         return result.toString();
     }
 
+    /**
+     * @return the number of ideographic characters of a string
+     * @see Character#isIdeographic(int)
+     */
     public static int getIdeogramCount(String str) {
-        return (int) str.codePoints().filter(Character::isIdeographic).count();
+        int count = 0;
+        for (int i = 0; i < str.length(); ) {
+            int codePoint = str.codePointAt(i);
+            if (Character.isIdeographic(codePoint)) {
+                count++;
+            }
+            i += Character.charCount(codePoint);
+        }
+        return count;
     }
 
     /**
@@ -0,0 +1,155 @@
+package net.ivanhjc.utility.data;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Lays out the rows of a table in fixed-width columns for the formatTable methods of {@link StringUtils}. The display
+ * width of each cell is measured once, in the pass that fixes the widths of the columns, and kept in an int array for
+ * the pass that writes the rows, which pads the cells with spaces copied from a buffer.
+ * <p>
+ * The display width counts 2 for each wide character of East Asian scripts, i.e. CJK ideographs, kana, Hangul and
+ * full-width forms, which take up two columns in a monospaced font, and 1 for any other character. If ideographic
+ * characters are not considered, the width of a cell is its length.
+ */
+class TableLayout {
+    private static final char[] SPACES = StringUtils.repeat(' ', 256).toCharArray();
+
+    private final boolean ideo;
+    private int[] widths = new int[8];
+    private int columns;
+
+    /**
+     * @param ideo whether to count wide characters as 2 columns
+     */
+    TableLayout(boolean ideo) {
+        this.ideo = ideo;
+    }
+
+    /**
+     * Measure the cells of a row and widen the columns to fit them
+     *
+     * @return the width of each cell
+     */
+    int[] measure(String[] row) {
+        int[] cellWidths = measure(row, new int[row.length]);
+        if (row.length > widths.length) {
+            int[] grown = new int[Math.max(row.length, widths.length * 2)];
+            System.arraycopy(widths, 0, grown, 0, columns);
+            widths = grown;
+        }
+        for (int i = 0; i < row.length; i++) {
+            if (cellWidths[i] > widths[i]) {
+                widths[i] = cellWidths[i];
+            }
+        }
+        columns = Math.max(columns, row.length);
+        return cellWidths;
+    }
+
+    /**
+     * Measure the cells of a row without changing the widths of the columns
+     *
+     * @param cellWidths the array to fill, at least as long as the row
+     * @return the array
+     */
+    int[] measure(String[] row, int[] cellWidths) {
+        for (int i = 0; i < row.length; i++) {
+            cellWidths[i] = ideo ? displayWidth(row[i]) : row[i].length();
+        }
+        return cellWidths;
+    }
+
+    /**
+     * @return the width of a column, the widest cell measured in it
+     */
+    int getWidth(int column) {
+        return column < columns ? widths[column] : 0;
+    }
+
+    /**
+     * Append a row, each cell but the last padded to the width of its column, which is at least 1
+     *
+     * @param out          where to append the row
+     * @param row          the cells of the row
+     * @param cellWidths   the widths of the cells measured before
+     * @param colNum       the number of columns, in which case the cells of a longer row from the last column on are
+     *                     joined and a shorter row is filled with empty cells, or null for as many columns as the row
+     * @param colDelimiter the text before each column
+     * @param margin       the number of spaces after each padded cell
+     */
+    void appendRow(Appendable out, String[] row, int[] cellWidths, Integer colNum, String colDelimiter, int margin) throws IOException {
+        out.append(colDelimiter);
+        int last = colNum == null ? row.length - 1 : colNum - 1;
+        for (int i = 0; i < last; i++) {
+            int cellWidth = 0;
+            if (i < row.length) {
+                out.append(row[i]);
+                cellWidth = cellWidths[i];
+            }
+            appendSpaces(out, Math.max(0, Math.max(1, getWidth(i)) - cellWidth) + margin);
+            out.append(colDelimiter);
+        }
+        for (int i = Math.max(0, last); i < row.length; i++) {
+            out.append(row[i]);
+        }
+        out.append('\n');
+    }
+
+    static void appendSpaces(Appendable out, int count) throws IOException {
+        for (; count > 0; count -= SPACES.length) {
+            int length = Math.min(count, SPACES.length);
+            if (out instanceof StringBuilder) {
+                ((StringBuilder) out).append(SPACES, 0, length);
+            } else if (out instanceof Writer) {
+                ((Writer) out).write(SPACES, 0, length);
+            } else {
+                out.append(new String(SPACES, 0, length));
+            }
+        }
+    }
+
+    /**
+     * @return the number of columns the string takes up in a monospaced font, 2 for each wide character
+     */
+    static int displayWidth(String str) {
+        int length = str.length();
+        int width = length;
+        for (int i = 0; i < length; i++) {
+            char c = str.charAt(i);
+            // Nothing below the Hangul Jamo is wide, which keeps Latin text on this branch
+            if (c < 0x1100) {
+                continue;
+            }
+            if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(str.charAt(i + 1))) {
+                // A supplementary character takes up two chars, which already count for its 2 columns if it's wide
+                if (!isWide(Character.toCodePoint(c, str.charAt(++i)))) {
+                    width--;
+                }
+            } else if (isWide(c)) {
+                width++;
+            }
+        }
+        return width;
+    }
+
+    /**
+     * @return whether a character is East Asian wide or full-width
+     */
+    static boolean isWide(int codePoint) {
+        return codePoint >= 0x1100 && codePoint <= 0x115F          // Hangul Jamo
+                || codePoint >= 0x2E80 && codePoint <= 0x303E      // CJK radicals and symbols
+                || codePoint >= 0x3041 && codePoint <= 0x33FF      // Kana, Bopomofo, Hangul compatibility, CJK compatibility
+                || codePoint >= 0x3400 && codePoint <= 0x4DBF      // CJK extension A
+                || codePoint >= 0x4E00 && codePoint <= 0x9FFF      // CJK unified ideographs
+                || codePoint >= 0xA000 && codePoint <= 0xA4CF      // Yi
+                || codePoint >= 0xAC00 && codePoint <= 0xD7A3      // Hangul syllables
+                || codePoint >= 0xF900 && codePoint <= 0xFAFF      // CJK compatibility ideographs
+                || codePoint >= 0xFE30 && codePoint <= 0xFE4F      // CJK compatibility forms
+                || codePoint >= 0xFF00 && codePoint <= 0xFF60      // Full-width forms
+                || codePoint >= 0xFFE0 && codePoint <= 0xFFE6      // Full-width signs
+                || codePoint >= 0x1F300 && codePoint <= 0x1F64F    // Pictographs and emoticons
+                || codePoint >= 0x1F900 && codePoint <= 0x1F9FF    // Supplemental pictographs
+                || codePoint >= 0x20000 && codePoint <= 0x3FFFD;   // CJK extensions B and later
+    }
+}
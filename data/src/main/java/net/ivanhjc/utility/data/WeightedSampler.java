@@ -0,0 +1,187 @@
+package net.ivanhjc.utility.data;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Draws items at random by their weights in O(1) time per draw, using the alias tables of Vose's alias method built
+ * once in O(n) time. For example, to draw the keys of a map of chances as {@link MapUtils#selectByChance(Map)} does:
+ * <pre>
+ * {@code
+ * WeightedSampler<String> sampler = WeightedSampler.of(chances);
+ * String winner = sampler.next();
+ * }
+ * </pre>
+ * The weights don't have to add up to 1, each item is drawn with the probability of its weight divided by the sum of
+ * all weights. A sampler is immutable and can be shared by threads. The draws without a random generator use
+ * {@link ThreadLocalRandom}, so they don't contend with each other.
+ *
+ * @param <T> the type of the items
+ * @see <a href="https://www.keithschwarz.com/darts-dice-coins/">Darts, Dice, and Coins: Sampling from a Discrete Distribution</a>
+ */
+public class WeightedSampler<T> {
+    private final List<T> items;
+    /**
+     * The probability of each column of the table to draw its own item rather than its alias
+     */
+    private final double[] probabilities;
+    /**
+     * The index of the item that fills the rest of each column
+     */
+    private final int[] aliases;
+
+    private WeightedSampler(List<T> items, double[] weights) {
+        int n = items.size();
+        if (n == 0 || weights.length != n)
+            throw new IllegalArgumentException("There should be as many weights as items and at least one item: " + weights.length + " weights, " + n + " items");
+
+        double sum = 0;
+        for (double weight : weights) {
+            if (!(weight >= 0) || Double.isInfinite(weight))
+                throw new IllegalArgumentException("Weights should be non-negative finite numbers: " + weight);
+            sum += weight;
+        }
+        if (sum <= 0)
+            throw new IllegalArgumentException("At least one weight should be positive");
+
+        this.items = new ArrayList<>(items);
+        this.probabilities = new double[n];
+        this.aliases = new int[n];
+        // Scale the weights so that the average column is 1, then fill each column under 1 with the excess of one over 1
+        double[] scaled = new double[n];
+        Deque<Integer> small = new ArrayDeque<>();
+        Deque<Integer> large = new ArrayDeque<>();
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / sum;
+            (scaled[i] < 1 ? small : large).push(i);
+        }
+        while (!small.isEmpty() && !large.isEmpty()) {
+            int less = small.pop();
+            int more = large.pop();
+            probabilities[less] = scaled[less];
+            aliases[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            (scaled[more] < 1 ? small : large).push(more);
+        }
+        // What's left is 1 but for rounding errors
+        while (!large.isEmpty()) {
+            probabilities[large.pop()] = 1;
+        }
+        while (!small.isEmpty()) {
+            probabilities[small.pop()] = 1;
+        }
+    }
+
+    /**
+     * Build a sampler of the keys of a map
+     *
+     * @param weights key - the items to draw, value - the weight of the item, non-negative
+     * @throws IllegalArgumentException if the map is empty, a weight is negative or no weight is positive
+     */
+    public static <T> WeightedSampler<T> of(Map<T, ? extends Number> weights) {
+        List<T> items = new ArrayList<>(weights.size());
+        double[] array = new double[weights.size()];
+        int i = 0;
+        for (Map.Entry<T, ? extends Number> entry : weights.entrySet()) {
+            items.add(entry.getKey());
+            array[i++] = entry.getValue().doubleValue();
+        }
+        return new WeightedSampler<>(items, array);
+    }
+
+    /**
+     * Build a sampler of a list of items
+     *
+     * @param items   the items to draw
+     * @param weights the weight of each item, non-negative
+     * @throws IllegalArgumentException if the lengths differ or are 0, a weight is negative or no weight is positive
+     */
+    public static <T> WeightedSampler<T> of(List<T> items, double[] weights) {
+        return new WeightedSampler<>(items, weights);
+    }
+
+    /**
+     * @return the number of items
+     */
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * Draw an item with {@link ThreadLocalRandom}
+     */
+    public T next() {
+        return items.get(nextIndex(ThreadLocalRandom.current().nextDouble()));
+    }
+
+    /**
+     * Draw an item with the given random generator, which makes the draws reproducible if the generator is seeded
+     */
+    public T next(SplittableRandom random) {
+        return items.get(nextIndex(random.nextDouble()));
+    }
+
+    /**
+     * Draw the index of an item in the list or map the sampler was built of, with {@link ThreadLocalRandom}
+     */
+    public int nextIndex() {
+        return nextIndex(ThreadLocalRandom.current().nextDouble());
+    }
+
+    /**
+     * Fill an array with items drawn with {@link ThreadLocalRandom}
+     *
+     * @return the array
+     */
+    public T[] next(T[] array) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < array.length; i++) {
+            array[i] = items.get(nextIndex(random.nextDouble()));
+        }
+        return array;
+    }
+
+    /**
+     * Fill an array with items drawn with the given random generator
+     *
+     * @return the array
+     */
+    public T[] next(T[] array, SplittableRandom random) {
+        for (int i = 0; i < array.length; i++) {
+            array[i] = items.get(nextIndex(random.nextDouble()));
+        }
+        return array;
+    }
+
+    /**
+     * Draw the indices of items in bulk with the given random generator
+     *
+     * @param count how many indices to draw
+     * @return the drawn indices in the list or map the sampler was built of
+     */
+    public int[] nextIndices(int count, SplittableRandom random) {
+        int[] indices = new int[count];
+        for (int i = 0; i < count; i++) {
+            indices[i] = nextIndex(random.nextDouble());
+        }
+        return indices;
+    }
+
+    /**
+     * Pick a column of the table and then the column's item or its alias with a single uniform number in [0, 1), the
+     * integer part of which scaled by the number of columns picks the column and the fraction picks the item
+     */
+    private int nextIndex(double uniform) {
+        double x = uniform * probabilities.length;
+        int column = (int) x;
+        if (column == probabilities.length) {
+            column--;
+        }
+        return x - column < probabilities[column] ? column : aliases[column];
+    }
+}
@@ -8,6 +8,7 @@ import org.junit.Test;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.stream.IntStream;
 
 /**
  * @author Ivan Huang on 2018/2/28
@@ -30,6 +31,39 @@ public class ListUtilsTest {
         ListUtils.println(ListUtils.histogram(arr2));
     }
 
+    @Test
+    public void countingIndex() {
+        CountingIndex index = CountingIndex.build(arr);
+        System.out.println(index + " " + index.count(0) + " " + index.count(10, 100));
+        ListUtils.println(CountingIndex.build(arr2).histogram(0, 9, 3));
+
+        // The last array is long enough to be built in parallel, see ListUtilsBenchmark for timings
+        Random random = new Random(1);
+        for (int[] array : new int[][]{random.ints(5000, -100, 1000).toArray(), random.ints(5000).toArray(), random.ints(70000, -1000, 100000).toArray()}) {
+            index = CountingIndex.build(array);
+            CountingIndex parallelIndex = CountingIndex.parallelBuild(array);
+            boolean equal = true;
+            for (int i = 0; i < 100; i++) {
+                int low = array[random.nextInt(array.length)], high = (int) Math.min(Integer.MAX_VALUE, low + (long) random.nextInt(1000));
+                int count = 0, countLow = 0;
+                for (int n : array) {
+                    count += n >= low && n <= high ? 1 : 0;
+                    countLow += n == low ? 1 : 0;
+                }
+                equal &= count == index.count(low, high) && count == parallelIndex.count(low, high) && countLow == index.count(low);
+            }
+
+            int[] histogram = index.histogram(-100, 999, 100);
+            int[] expected = new int[histogram.length];
+            for (int n : array) {
+                if (n >= -100 && n <= 999) {
+                    expected[(n + 100) / 100]++;
+                }
+            }
+            System.out.println(index + " " + (equal && Arrays.equals(expected, histogram)));
+        }
+    }
+
     @Test
     public void bubbleSort() {
         ListUtils.bubbleSort(arr);
@@ -81,6 +115,37 @@ public class ListUtilsTest {
         ListUtils.println(arr1);
     }
 
+    @Test
+    public void sortLarge() {
+        // Long enough for radix sort and for parallel merge sort to split, see ListUtilsBenchmark for timings
+        int length = 20000;
+        Random random = new Random(1);
+        int[] randomInts = random.ints(length).toArray();
+        int[] duplicates = random.ints(length, -100, 100).toArray();
+        int[] ascending = IntStream.range(-length / 3, length - length / 3).toArray();
+        int[] descending = IntStream.range(0, length).map(i -> -i).toArray();
+        int[] buffer = new int[length];
+        for (int[] input : new int[][]{randomInts, duplicates, ascending, descending}) {
+            int[] expected = input.clone();
+            Arrays.sort(expected);
+            int[] quick = input.clone(), merge = input.clone(), radix = input.clone(), parallel = input.clone(), sorted = input.clone();
+            ListUtils.quickSort(quick, 0, quick.length - 1);
+            ListUtils.mergeSort(merge, 0, merge.length - 1);
+            ListUtils.radixSort(radix);
+            ListUtils.parallelMergeSort(parallel, buffer);
+            ListUtils.sort(sorted);
+            System.out.println("quickSort " + Arrays.equals(expected, quick) + ", mergeSort " + Arrays.equals(expected, merge)
+                    + ", radixSort " + Arrays.equals(expected, radix) + ", parallelMergeSort " + Arrays.equals(expected, parallel)
+                    + ", sort " + Arrays.equals(expected, sorted));
+        }
+
+        long[] longs = random.longs(length).toArray();
+        long[] expected = longs.clone();
+        Arrays.sort(expected);
+        ListUtils.sort(longs);
+        System.out.println("sort(long[]) " + Arrays.equals(expected, longs));
+    }
+
     @Test
     public void sortByFixedOrder() {
         List<String> arr = new ArrayList<>(Arrays.asList("e","a","z","a","c","e","b"));
@@ -138,6 +203,14 @@ public class ListUtilsTest {
         ListUtils.println(ListUtils.parseInt(new String[]{"1", "2", "3", "4"}));
         ListUtils.println(ListUtils.parseInt("1,2,3,4,5"));
         ListUtils.println(ListUtils.parseInt(",1,2,3,,3,4, 5,  6, 7 ,  "));
+        ListUtils.println(ListUtils.parseInt(" -2147483648 1 +2  2147483647 ", ' ', false));
+        ListUtils.println(ListUtils.parseInt("1, a, 2 3, -, 4, 2147483648, 5", ',', true));
+        System.out.println(ListUtils.containsInt("1, 3,5", ',', 3) + " " + ListUtils.containsInt("1, 3,5", ',', 2));
+        try {
+            ListUtils.parseInt("1, 2 3, 4");
+        } catch (NumberFormatException e) {
+            System.out.println(e.getMessage());
+        }
     }
 
     @Test
@@ -145,6 +218,7 @@ public class ListUtilsTest {
         ListUtils.println(ListUtils.parseLong(new String[]{"1", "2", "3", "4"}));
         ListUtils.println(ListUtils.parseLong("1,2,3,4,5"));
         ListUtils.println(ListUtils.parseLong(",1,2,3,,3,4, 5,  6, 7 ,  "));
+        ListUtils.println(ListUtils.parseLong("-9223372036854775808;9223372036854775807;9223372036854775808", ';', true));
     }
 
     @Test
@@ -177,6 +251,27 @@ public class ListUtilsTest {
                 Arrays.asList(new Person(1, "A"), new Person(2, "B")),
                 Arrays.asList(new Person(1, "test"), new Person(3, "C")),
                 Comparator.comparing(Person::getId)));
+        System.out.println(ListUtils.venn(Arrays.asList("a", "b", "a", "c", null), Arrays.asList("c", "d", null, "b", "d")));
+    }
+
+    @Test
+    public void VennPartitionLarge() {
+        Random random = new Random();
+        List<Integer> left = new ArrayList<>();
+        List<Integer> right = new ArrayList<>();
+        for (int i = 0; i < 200000; i++) {
+            left.add(random.nextInt(150000));
+            right.add(random.nextInt(150000) + 50000);
+        }
+        long start = System.currentTimeMillis();
+        List<List<Integer>> byHash = ListUtils.venn(left, right);
+        System.out.println("Hash: " + (System.currentTimeMillis() - start) + "ms");
+        start = System.currentTimeMillis();
+        List<List<Integer>> bySort = ListUtils.venn(left, right, Integer::compare);
+        System.out.println("Sort-merge: " + (System.currentTimeMillis() - start) + "ms");
+        for (int i = 0; i < 3; i++) {
+            System.out.println(byHash.get(i).size() + " " + byHash.get(i).equals(bySort.get(i)));
+        }
     }
 
     @Test
@@ -186,6 +281,29 @@ public class ListUtilsTest {
         int[] arr3 = new int[]{-9, 0, 4, 8, 42};
         ListUtils.println(ListUtils.merge(arr1, arr2));
         ListUtils.println(ListUtils.merge(arr1, arr2, arr3));
+        ListUtils.println(ListUtils.merge(arr1, new int[0], arr2, arr3, new int[]{100}));
+        ListUtils.println(ListUtils.merge(new long[]{1, 3, 5}, new long[]{Long.MIN_VALUE, 4}, new long[]{Long.MAX_VALUE}));
+        System.out.println(ListUtils.merge(Arrays.asList(Arrays.asList("d", "b"), Collections.<String>emptyList(), Arrays.asList("c", "a")),
+                Comparator.<String>reverseOrder()));
+    }
+
+    @Test
+    public void mergeLarge() {
+        Random random = new Random();
+        int[][] shards = new int[500][];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new int[random.nextInt(20000)];
+            for (int j = 0; j < shards[i].length; j++) {
+                shards[i][j] = random.nextInt();
+            }
+            Arrays.sort(shards[i]);
+        }
+        long start = System.currentTimeMillis();
+        int[] merged = ListUtils.merge(shards);
+        System.out.println("Merged " + merged.length + " in " + (System.currentTimeMillis() - start) + "ms");
+        int[] sorted = Arrays.stream(shards).flatMapToInt(Arrays::stream).sorted().toArray();
+        System.out.println(Arrays.equals(merged, sorted));
+        System.out.println(ListUtils.mergeIterator(shards).hasNext() && ListUtils.mergeIterator(shards).nextInt() == sorted[0]);
     }
 
     @Test
@@ -200,6 +318,30 @@ public class ListUtilsTest {
     @Test
     public void removeDuplicates() {
         System.out.println(ListUtils.deduplicate("2,5,a,a,3,4,2,1,4"));
+        System.out.println(ListUtils.deduplicate(",2,,5,2,,"));
+        ListUtils.println(ListUtils.deduplicate(arr2));
+        ListUtils.println(ListUtils.deduplicate(new long[]{0, Long.MIN_VALUE, 0, -1, Long.MIN_VALUE, 4}));
+    }
+
+    @Test
+    public void removeDuplicatesLarge() {
+        // The second array is just long enough for the parallel methods to split it, see ListUtilsBenchmark for timings
+        Random random = new Random(1);
+        for (int length : new int[]{5000, 70000}) {
+            int[] array = new int[length];
+            List<Integer> list = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                array[i] = random.nextInt(length / 2);
+                list.add(array[i]);
+            }
+            List<Integer> expected = new ArrayList<>(new LinkedHashSet<>(list));
+            int[] result = ListUtils.deduplicate(array);
+            System.out.println(length + ": " + result.length + " distinct, "
+                    + Arrays.equals(ListUtils.parseInt(expected), result) + " "
+                    + Arrays.equals(result, ListUtils.parallelDeduplicate(array)) + " "
+                    + expected.equals(ListUtils.deduplicate(list)) + " "
+                    + expected.equals(ListUtils.parallelDeduplicate(list)));
+        }
     }
 
     @Test
@@ -5,8 +5,13 @@ import net.ivanhjc.utility.model.User;
 import org.apache.commons.lang3.ArrayUtils;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * @author Ivan Huang on 2018/4/2 16:57
@@ -15,12 +20,43 @@ public class MapUtilsTest {
 
     @Test
     public void sortByValue() {
-
+        Map<String, Integer> map = new HashMap<>();
+        map.put("Ivan", 3);
+        map.put("John", 1);
+        map.put("Alex", 2);
+        map.put("Mark", 2);
+        System.out.println(MapUtils.sortByValue(map));
+        System.out.println(MapUtils.sortByValue(map, true));
+        System.out.println(Arrays.toString(MapUtils.sortedEntriesByValue(map, false)));
     }
 
     @Test
     public void sortByKey() {
+        Map<String, Integer> map = new HashMap<>();
+        map.put("Ivan", 3);
+        map.put("John", 1);
+        map.put("Alex", 2);
+        map.put("Mark", 2);
+        System.out.println(MapUtils.sortByKey(map));
+        System.out.println(Arrays.toString(MapUtils.sortedEntriesByKey(map, true)));
+    }
 
+    @Test
+    public void topK() {
+        Random random = new Random(1);
+        Map<String, Integer> map = new HashMap<>();
+        for (int i = 0; i < 1000000; i++) {
+            map.put("key" + i, random.nextInt(100000));
+        }
+        long start = System.currentTimeMillis();
+        List<Map.Entry<String, Integer>> top = MapUtils.topKByValue(map, 10);
+        System.out.println("topKByValue: " + (System.currentTimeMillis() - start) + "ms " + top);
+        start = System.currentTimeMillis();
+        Map.Entry<String, Integer>[] sorted = MapUtils.sortedEntriesByValue(map, false);
+        System.out.println("sortedEntriesByValue: " + (System.currentTimeMillis() - start) + "ms");
+        System.out.println(Arrays.toString(Arrays.copyOfRange(sorted, sorted.length - 10, sorted.length)));
+        System.out.println(MapUtils.topKByKey(map, 3));
+        System.out.println(MapUtils.topK(map, 3, Map.Entry.<String, Integer>comparingByValue().reversed()));
     }
 
     @Test
@@ -64,6 +100,36 @@ public class MapUtilsTest {
         System.out.println(MapUtils.getTable(histogram, "Item", "Times"));
     }
 
+    @Test
+    public void weightedSampler() {
+        Map<String, Double> map = new LinkedHashMap<>();
+        map.put("Ivan", 7.0);
+        map.put("John", 0.1);
+        map.put("Alex", 2.0);
+        map.put("Mark", 0.9);
+        map.put("Nobody", 0.0);
+        WeightedSampler<String> sampler = WeightedSampler.of(map);
+
+        // Enough draws for every frequency to be within 0.5% of its share of the weights, which add up to 10, see
+        // MapUtilsBenchmark for the throughput
+        int draws = 100000;
+        int[] counts = new int[sampler.size()];
+        for (int index : sampler.nextIndices(draws, new SplittableRandom(1))) {
+            counts[index]++;
+        }
+        Map<Object, Object> histogram = new LinkedHashMap<>();
+        boolean close = true;
+        int i = 0;
+        for (Map.Entry<String, Double> entry : map.entrySet()) {
+            double frequency = counts[i++] / (double) draws;
+            histogram.put(entry.getKey(), frequency);
+            close &= Math.abs(frequency - entry.getValue() / 10) < 0.005;
+        }
+        System.out.println(MapUtils.getTable(histogram, "Item", "Frequency"));
+        System.out.println(close);
+        System.out.println(Arrays.toString(sampler.next(new String[10], new SplittableRandom(2))));
+    }
+
     @Test
     public void containsAll() {
         System.out.println(MapUtils.notNull("b,c", MapUtils.createMap("a", null, "b", 0, "c", null)));
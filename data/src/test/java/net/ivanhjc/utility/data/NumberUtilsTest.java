@@ -2,6 +2,9 @@ package net.ivanhjc.utility.data;
 
 import org.junit.Test;
 import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
 
 /**
  * @author Ivan Huang on 2018/8/31 18:38.
@@ -52,7 +55,35 @@ public class NumberUtilsTest {
         System.out.println(MapUtils.getTable(NumberUtils.getHistogramOfRanges(ranges, -199, 20, 37, 99, 132, 9095, 0, 1024, 120), "range", "count"));
 //        System.out.println(MapUtils.getTable(MathUtils.getHistogramOfRanges(new String[]{}, 1, 2, 3, 4, 5.5, 10, 21, -19), "range", "count"));
     }
-    
+
+    @Test
+    public void rangeSet() {
+        RangeSet ranges = RangeSet.parse("(INF, 0)", "[0, 1]", "(1, 5.5]", "(6, 9)", "[9, INF)");
+        for (double n : new double[]{-1, 0, 1, 3.9, 5.5, 5.8, 6, 9, 1000}) {
+            System.out.println(n + " -> " + ranges.getRange(n));
+        }
+
+        String[] ranges2 = new String[100];
+        for (int i = 0; i < ranges2.length; i++) {
+            ranges2[i] = "[" + i * 10 + ", " + (i + 1) * 10 + ")";
+        }
+        // The last numbers are enough to be counted in parallel, see NumberUtilsBenchmark for timings
+        Random random = new Random(1);
+        for (int size : new int[]{5000, 70000}) {
+            double[] numbers = random.doubles(size, -10, 1010).toArray();
+            Map<String, Integer> hist = RangeSet.parse(ranges2).histogram(numbers);
+            Map<String, Integer> expected = new HashMap<>();
+            for (String range : ranges2) {
+                expected.put(range, 0);
+            }
+            for (double n : numbers) {
+                String range = NumberUtils.getRange(ranges2, n);
+                expected.merge(range == null ? RangeSet.NOT_IN_ANY_RANGE : range, 1, Integer::sum);
+            }
+            System.out.println(hist.equals(expected) + " " + hist.equals(NumberUtils.getHistogramOfRanges(ranges2, numbers)));
+        }
+    }
+
     @Test
     public void formatDecimal() {
         System.out.println(NumberUtils.formatDecimal(new BigDecimal(100.00800), 4, false));
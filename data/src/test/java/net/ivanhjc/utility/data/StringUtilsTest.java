@@ -8,12 +8,21 @@ import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.RandomUtils;
 import org.junit.Test;
 
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Proxy;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
 
 /**
  * @author Ivan Huang on 2017/6/27
@@ -65,6 +74,28 @@ public class StringUtilsTest {
         ListUtils.println(StringUtils.camelToSnake(new String[]{"companyName", "cardNo"}));
     }
 
+    @Test
+    public void caseConversionArray() {
+        ListUtils.println(StringUtils.snakeToCamel(testStrs1));
+        ListUtils.println(StringUtils.toTitleCase(testStrs1));
+        for (String str : testStrs1) {
+            System.out.printf(format, str, pointer, StringUtils.snakeToCamel(str, false));
+        }
+
+        String[] names = new String[100000];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "companyName" + (i % 500) + "CardNo";
+        }
+        for (int size : new int[]{0, 4096}) {
+            StringUtils.setCaseCacheSize(size);
+            long start = System.currentTimeMillis();
+            for (String name : names) {
+                StringUtils.snakeToCamel(StringUtils.camelToSnake(name));
+            }
+            System.out.println("Cache size " + size + ": " + (System.currentTimeMillis() - start) + "ms");
+        }
+    }
+
     @Test
     public void isLettersAndDigits() {
         for (String str : testStrs1)
@@ -143,6 +174,29 @@ public class StringUtilsTest {
         }
     }
 
+    @Test
+    public void splitter() {
+        Splitter splitter = Splitter.of("\\|", SplitRegex.DROPPED);
+        System.out.println(Arrays.toString(splitter.split("| 参数名称 | 是否必填 |  | 备注 |", true)));
+        Splitter.Parts parts = Splitter.of("\\\\u", SplitRegex.AHEAD).parts(new StringBuilder("\\u9000\\u62BCabc\\u91D1"));
+        for (int i = 0; i < parts.size(); i++) {
+            System.out.println(parts.start(i) + "-" + parts.end(i) + ": " + parts.get(i));
+        }
+        System.out.println(Arrays.toString(Splitter.of("\\s*,\\s*", SplitRegex.INDEPENDENT).split("a , b,c")));
+
+        String line = "1 | Bob | 12 | M | 2019-10-29 18:48:33 | 支付宝";
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 100000; i++) {
+            line.split("(?<=\\|)");
+        }
+        System.out.println("String.split: " + (System.currentTimeMillis() - start) + "ms");
+        start = System.currentTimeMillis();
+        for (int i = 0; i < 100000; i++) {
+            StringUtils.split(line, "\\|", SplitRegex.BEHIND);
+        }
+        System.out.println("StringUtils.split: " + (System.currentTimeMillis() - start) + "ms");
+    }
+
     @Test
     public void encloseSubstrings() {
         String delimiter = "\\\\";
@@ -224,6 +278,67 @@ public class StringUtilsTest {
         System.out.println(StringUtils.formatTable(table, null, null, 2, true));
     }
 
+    @Test
+    public void formatTableResultSet() throws Exception {
+        ResultSet resultSet = forwardOnlyResultSet(new String[]{"id", "name", "city"}, 20, i -> new Object[]{i, "name" + i, i % 3 == 0 ? "北京" : null});
+        System.out.println(StringUtils.formatTable(resultSet));
+
+        // The rows after the first 5 are streamed with the widths of the first 5, a wider cell pushes the rest of its row
+        resultSet = forwardOnlyResultSet(new String[]{"id", "name", "city"}, 20, i -> new Object[]{i, "name" + i, i % 3 == 0 ? "北京" : null});
+        StringWriter writer = new StringWriter();
+        System.out.println(StringUtils.formatTable(resultSet, writer, 5) + " rows\n" + writer);
+
+        resultSet = forwardOnlyResultSet(new String[]{"id", "name", "city"}, 1000000, i -> new Object[]{i, "name" + i, "city" + i % 100});
+        Writer discard = new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) {
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        long start = System.currentTimeMillis();
+        long rows = StringUtils.formatTable(resultSet, discard, 1000);
+        System.out.println(rows + " rows in " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    /**
+     * A forward-only result set of generated rows, which fails on {@link ResultSet#last()} as a streaming MySQL result
+     * set does
+     */
+    private static ResultSet forwardOnlyResultSet(String[] columns, int rowCount, IntFunction<Object[]> rows) {
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(ResultSetMetaData.class.getClassLoader(), new Class[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getColumnCount":
+                    return columns.length;
+                case "getColumnName":
+                    return columns[(int) args[0] - 1];
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+        int[] current = {-1};
+        Object[][] row = {null};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class[]{ResultSet.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getMetaData":
+                    return metaData;
+                case "next":
+                    row[0] = ++current[0] < rowCount ? rows.apply(current[0]) : null;
+                    return row[0] != null;
+                case "getObject":
+                    return row[0][(int) args[0] - 1];
+                default:
+                    throw new SQLException("Operation not allowed for a forward-only result set: " + method.getName());
+            }
+        });
+    }
+
     @Test
     public void formatMarkdownTable() {
         System.out.println(StringUtils.formatTableMarkdown("id,name,age,sex\n1,Bob,12,M\n2,Alice,8,F\n", 4, ","));
@@ -272,6 +387,30 @@ public class StringUtilsTest {
         System.out.println(StringUtils.indexOfFirstNonBlankChar("   - hello"));
     }
 
+    @Test
+    public void replaceMap() {
+        Map<String, String> map = new HashMap<>();
+        map.put("ab", "1");
+        map.put("abc", "2");
+        map.put("bcd", "3");
+        map.put("d", "4");
+        System.out.println(StringUtils.replace(new StringBuilder("abcd abd xbcdd"), map));
+
+        Map<String, String> placeholders = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            placeholders.put("${field" + i + "}", "value" + i);
+        }
+        StringBuilder template = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            template.append("private String ${field").append(i % 1200).append("};\n");
+        }
+        MultiReplacer replacer = MultiReplacer.compile(placeholders);
+        long start = System.currentTimeMillis();
+        String result = replacer.replace(template.toString());
+        System.out.println(template.length() + " -> " + result.length() + " chars in " + (System.currentTimeMillis() - start) + "ms");
+        System.out.println(result.substring(0, 120));
+    }
+
     private List<Integer> random(int size) {
         List<Integer> list = new ArrayList<>();
         for (int i = 0; i < size; i++) {
@@ -2,13 +2,12 @@ package net.ivanhjc.utility.file;
 
 import com.fasterxml.jackson.dataformat.yaml.snakeyaml.Yaml;
 import net.ivanhjc.utility.data.MapUtils;
+import net.ivanhjc.utility.net.Downloader;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 
 import java.io.*;
-import java.net.HttpURLConnection;
 import java.net.URISyntaxException;
-import java.net.URL;
 import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -81,63 +80,12 @@ public class FileUtils extends org.apache.commons.io.FileUtils {
      * @throws IOException
      */
     public static void download(String fileURL, String saveDir) throws IOException {
-        URL url = new URL(fileURL);
-        HttpURLConnection httpConn = (HttpURLConnection) url.openConnection();
-
-        // Always check HTTP response code first
-        int responseCode = httpConn.getResponseCode();
-        if (responseCode == HttpURLConnection.HTTP_OK) {
-            String fileName = "";
-            String disposition = httpConn.getHeaderField("Content-Disposition");
-            String contentType = httpConn.getContentType();
-            int contentLength = httpConn.getContentLength();
-
-            if (disposition != null) {
-                // extracts file name from header field
-                int index = disposition.indexOf("filename=");
-                if (index > 0) {
-                    fileName = disposition.substring(index + 10,
-                            disposition.length() - 1);
-                }
-            } else {
-                // extracts file name from URL
-                fileName = fileURL.substring(fileURL.lastIndexOf("/") + 1,
-                        fileURL.length());
-            }
-
-            System.out.println("Content-Type = " + contentType);
-            System.out.println("Content-Disposition = " + disposition);
-            System.out.println("Content-Length = " + contentLength);
-            System.out.println("fileName = " + fileName);
-
-            // opens input stream from the HTTP connection
-            InputStream inputStream = httpConn.getInputStream();
-            String saveFilePath = saveDir + File.separator + fileName;
-
-            // opens an output stream to save into file
-            FileOutputStream outputStream = new FileOutputStream(saveFilePath);
-
-            int bytesRead = -1;
-            byte[] buffer = new byte[4096];
-            while ((bytesRead = inputStream.read(buffer)) != -1) {
-                outputStream.write(buffer, 0, bytesRead);
-            }
-
-            outputStream.close();
-            inputStream.close();
-
-            System.out.println("File downloaded");
-        } else {
-            System.out.println("No file to download. Server replied HTTP code: " + responseCode);
-        }
-        httpConn.disconnect();
+        new Downloader().downloadToDir(fileURL, saveDir);
     }
 
     public static void saveFile(String fileUrl, String saveDir, String name, String format) {
         try {
-            URL url = new URL(fileUrl);
-            File file = new File(String.format("%s%s.%s", saveDir, name, format));
-            org.apache.commons.io.FileUtils.copyInputStreamToFile(url.openStream(), file);
+            new Downloader().download(fileUrl, new File(String.format("%s%s.%s", saveDir, name, format)));
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -0,0 +1,531 @@
+package net.ivanhjc.utility.file;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import net.ivanhjc.utility.data.CountMinSketch;
+import net.ivanhjc.utility.data.HyperLogLog;
+import net.ivanhjc.utility.data.SpaceSaving;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Counts the times of occurrence of the values of certain parameters in a log file of one request per line, as
+ * {@link LogUtils#countReqParams(String, String, String...)} and {@link LogUtils#countParams(String, String, String...)}
+ * do, but over all processors. For example:
+ * <pre>
+ * {@code
+ * LogCounter.Counts counts = new LogCounter(LogCounter.Format.JSON, "UserID", "OrderID").count("requests.log");
+ * Map<String, Integer> users = counts.getCounts("UserID");
+ * }
+ * </pre>
+ * The file is split into chunks on line boundaries, each of which is memory-mapped and counted by a task of a
+ * fork-join pool into counters of its own, and the counters of all chunks are added up at the end. A JSON line is
+ * not parsed into a tree, it's read token by token with a {@link JsonReader} and only the values of the requested
+ * parameters are taken, stopping as soon as all of them are found.
+ */
+public class LogCounter {
+    private static final Logger LOG = LogManager.getLogger();
+    /**
+     * Files smaller than this are counted in one chunk
+     */
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    /**
+     * The largest chunk mapped at once, well under the 2GB limit of a {@link MappedByteBuffer}
+     */
+    private static final long MAX_CHUNK_SIZE = 1 << 28;
+
+    /**
+     * How the parameters are written in a line
+     */
+    public enum Format {
+        /**
+         * Each line is a JSON object of the request parameters, e.g. {"UserID": 1, "OrderID": "A1"}. A line which is
+         * not a JSON object or whose requested parameters are objects or arrays is skipped.
+         */
+        JSON,
+        /**
+         * Each parameter is written as "name:value," anywhere in the line, e.g. "... orderId:A1, userId:1 ..."
+         */
+        KEY_VALUE
+    }
+
+    private final Format format;
+    private final String[] params;
+    /**
+     * The index of each parameter in {@link #params}
+     */
+    private final Map<String, Integer> paramIndex = new HashMap<>();
+    /**
+     * The text before the value of each parameter in {@link Format#KEY_VALUE}
+     */
+    private final String[] openTags;
+    private Charset charset = StandardCharsets.UTF_8;
+    private int parallelism = ForkJoinPool.getCommonPoolParallelism();
+    /**
+     * The number of most frequent values to keep of each parameter in the sketch mode, 0 for exact counts
+     */
+    private int top;
+
+    /**
+     * @param format how the parameters are written in a line
+     * @param params the parameters to count
+     */
+    public LogCounter(Format format, String... params) {
+        this.format = format;
+        this.params = params.clone();
+        this.openTags = new String[params.length];
+        for (int i = 0; i < params.length; i++) {
+            paramIndex.put(params[i], i);
+            openTags[i] = params[i] + ":";
+        }
+    }
+
+    /**
+     * Only charsets which encode line breaks as the single ASCII bytes are supported, e.g. UTF-8, ISO-8859-1 and GBK
+     * but not UTF-16, since the file is split into chunks and lines at the bytes '\n' and '\r' before decoding.
+     *
+     * @param charset the charset of the file, UTF-8 by default
+     * @throws IllegalArgumentException if the charset doesn't encode "\r\n" as the ASCII bytes
+     */
+    public LogCounter setCharset(Charset charset) {
+        if (!Arrays.equals("\r\n".getBytes(charset), new byte[]{'\r', '\n'})) {
+            throw new IllegalArgumentException("Only charsets which encode line breaks as in ASCII are supported: " + charset);
+        }
+        this.charset = charset;
+        return this;
+    }
+
+    /**
+     * @param parallelism the number of chunks counted at the same time, the parallelism of the common fork-join pool
+     *                    by default
+     */
+    public LogCounter setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Count each parameter with sketches of bounded memory instead of a map of exact counts, for parameters with too
+     * many distinct values to keep in memory such as user IDs or tokens: a {@link HyperLogLog} estimates the distinct
+     * count, a {@link CountMinSketch} estimates the count of each value, and a {@link SpaceSaving} summary keeps the
+     * candidates for the most frequent values. {@link Counts#getCounts(String)} then returns only the most frequent
+     * values with their estimated counts. The sketches of the chunks are merged like the exact counts are.
+     *
+     * @param top the number of most frequent values to keep of each parameter, 0 for exact counts
+     */
+    public LogCounter setSketches(int top) {
+        if (top < 0) {
+            throw new IllegalArgumentException("The number of most frequent values should not be negative: " + top);
+        }
+        this.top = top;
+        return this;
+    }
+
+    /**
+     * @return the parameters to count
+     */
+    public String[] getParams() {
+        return params.clone();
+    }
+
+    /**
+     * Count the parameters in a file
+     *
+     * @param file path of the file
+     * @return the counts of the parameters and the lines skipped
+     */
+    public Counts count(String file) throws IOException {
+        long start = System.currentTimeMillis();
+        Counts counts;
+        try (FileChannel channel = FileChannel.open(new File(file).toPath(), StandardOpenOption.READ)) {
+            counts = count(channel, 0, channel.size());
+        }
+        LOG.info("Counted {} lines of {} in {}ms", counts.getLineCount(), file, System.currentTimeMillis() - start);
+        return counts;
+    }
+
+    /**
+     * Count the lines of a range of a file, in chunks over all processors if the range is large. The range should
+     * start at the beginning of a line and end after a line break or at the end of the file.
+     *
+     * @param from the position of the first byte
+     * @param to   the position after the last byte
+     * @return the counts of the range, with the lines numbered from 1 at the start of the range
+     */
+    Counts count(FileChannel channel, long from, long to) throws IOException {
+        long[] bounds = split(channel, from, to);
+        if (bounds.length == 2 || parallelism < 2) {
+            return countChunk(channel, from, to);
+        }
+        return countChunks(channel, bounds);
+    }
+
+    /**
+     * Count the lines of a range of a file in the current thread
+     */
+    private Counts countChunk(FileChannel channel, long from, long to) throws IOException {
+        Counts counts = newCounts();
+        for (long position = from; position < to; position += MAX_CHUNK_SIZE) {
+            long size = Math.min(MAX_CHUNK_SIZE, to - position);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            boolean end = position + size == to;
+            int last = countLines(buffer, counts, end);
+            if (!end) {
+                if (last == 0) {
+                    throw new IOException("A line at " + position + " is longer than " + MAX_CHUNK_SIZE + " bytes");
+                }
+                // A line crosses the end of the mapping, start the next mapping from it
+                position -= size - last;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * @return empty counts of the parameters
+     */
+    Counts newCounts() {
+        return new Counts(params, top);
+    }
+
+    /**
+     * Count a line
+     *
+     * @return false if the line is skipped
+     */
+    boolean countLine(String line, Counts counts) {
+        counts.lines++;
+        try {
+            String[] values = parse(line);
+            for (int i = 0; i < values.length; i++) {
+                counts.count(i, values[i]);
+            }
+            return true;
+        } catch (Exception e) {
+            counts.skippedLines.put(counts.lines, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Get the values of the parameters in a line
+     *
+     * @return the value of each parameter, null if it's not in the line
+     * @throws IOException           if the line isn't a JSON object
+     * @throws IllegalStateException if a parameter is a JSON object or array
+     */
+    String[] parse(String line) throws IOException {
+        String[] values = new String[params.length];
+        if (format == Format.KEY_VALUE) {
+            for (int i = 0; i < params.length; i++) {
+                values[i] = StringUtils.substringBetween(line, openTags[i], ",");
+            }
+            return values;
+        }
+
+        JsonReader reader = new JsonReader(new StringReader(line));
+        reader.setLenient(true);
+        reader.beginObject();
+        boolean[] found = new boolean[params.length];
+        int remaining = params.length;
+        while (remaining > 0 && reader.hasNext()) {
+            Integer i = paramIndex.get(reader.nextName());
+            if (i == null) {
+                reader.skipValue();
+                continue;
+            }
+            JsonToken token = reader.peek();
+            if (token == JsonToken.BEGIN_OBJECT || token == JsonToken.BEGIN_ARRAY) {
+                throw new IllegalStateException("The value of " + params[i] + " is not a JSON primitive");
+            } else if (token == JsonToken.NULL) {
+                reader.nextNull();
+                values[i] = null;
+            } else if (token == JsonToken.BOOLEAN) {
+                values[i] = String.valueOf(reader.nextBoolean());
+            } else {
+                values[i] = reader.nextString();
+            }
+            if (!found[i]) {
+                found[i] = true;
+                remaining--;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * The counts of the values of each parameter, and the lines skipped because they couldn't be parsed
+     */
+    public static class Counts {
+        final String[] params;
+        /**
+         * The counts of each parameter by value, in mutable arrays so that counting doesn't box
+         */
+        final List<Map<String, int[]>> counts = new ArrayList<>();
+        final Map<Long, String> skippedLines = new HashMap<>();
+        /**
+         * The number of most frequent values kept in the sketch mode, 0 for exact counts
+         */
+        final int top;
+        /**
+         * The sketches of each parameter in the sketch mode, null for exact counts
+         */
+        final Sketch[] sketches;
+        long lines;
+
+        Counts(String[] params, int top) {
+            this.params = params;
+            this.top = top;
+            this.sketches = top > 0 ? new Sketch[params.length] : null;
+            for (int i = 0; i < params.length; i++) {
+                counts.add(new HashMap<>());
+                if (sketches != null) {
+                    sketches[i] = new Sketch(top);
+                }
+            }
+        }
+
+        /**
+         * @return the number of lines counted
+         */
+        public long getLineCount() {
+            return lines;
+        }
+
+        /**
+         * @return the times of occurrence of each value of a parameter, with the key null for the lines without the
+         * parameter. In the sketch mode only the most frequent values are returned, with estimated counts which may
+         * exceed the true counts.
+         * @throws IllegalArgumentException if the parameter isn't counted
+         */
+        public Map<String, Integer> getCounts(String param) {
+            int i = indexOf(param);
+            if (sketches != null) {
+                return sketches[i].top(top);
+            }
+            Map<String, Integer> result = new HashMap<>(counts.get(i).size() * 4 / 3 + 1);
+            counts.get(i).forEach((value, count) -> result.put(value, count[0]));
+            return result;
+        }
+
+        /**
+         * @return the number of distinct values of a parameter, null included, estimated in the sketch mode
+         * @throws IllegalArgumentException if the parameter isn't counted
+         */
+        public long getDistinctCount(String param) {
+            int i = indexOf(param);
+            return sketches != null ? sketches[i].distinct.cardinality() : counts.get(i).size();
+        }
+
+        /**
+         * @return the counts of all parameters by parameter name
+         */
+        public Map<String, Map<String, Integer>> getCounts() {
+            Map<String, Map<String, Integer>> result = new LinkedHashMap<>();
+            for (String param : params) {
+                result.put(param, getCounts(param));
+            }
+            return result;
+        }
+
+        /**
+         * @return the messages of the errors of the lines skipped by line number, starting from 1
+         */
+        public Map<Long, String> getSkippedLines() {
+            return skippedLines;
+        }
+
+        /**
+         * @return a copy of these counts which doesn't change with them
+         */
+        Counts copy() {
+            return new Counts(params, top).add(this);
+        }
+
+        /**
+         * Add the counts of the lines following the lines of these counts
+         *
+         * @return these counts
+         */
+        Counts add(Counts other) {
+            for (int i = 0; i < params.length; i++) {
+                Map<String, int[]> map = counts.get(i);
+                other.counts.get(i).forEach((value, count) -> map.computeIfAbsent(value, k -> new int[1])[0] += count[0]);
+                if (sketches != null) {
+                    sketches[i].merge(other.sketches[i]);
+                }
+            }
+            other.skippedLines.forEach((line, message) -> skippedLines.put(lines + line, message));
+            lines += other.lines;
+            return this;
+        }
+
+        void count(int i, String value) {
+            if (sketches != null) {
+                sketches[i].add(value);
+            } else {
+                counts.get(i).computeIfAbsent(value, k -> new int[1])[0]++;
+            }
+        }
+
+        private int indexOf(String param) {
+            int i = Arrays.asList(params).indexOf(param);
+            if (i == -1) {
+                throw new IllegalArgumentException("The parameter \"" + param + "\" is not counted");
+            }
+            return i;
+        }
+    }
+
+    /**
+     * The sketches of the values of a parameter
+     */
+    static class Sketch {
+        /**
+         * Each Space-Saving counter is shared by the values that come and go while more frequent values stay, so there
+         * should be several times more counters than the values wanted
+         */
+        private static final int COUNTERS_PER_TOP_VALUE = 10;
+
+        final HyperLogLog distinct = new HyperLogLog();
+        /**
+         * 16384 x 5 counters, which overestimate a count by at most 0.017% of all counts with 99% probability
+         */
+        final CountMinSketch frequencies = new CountMinSketch(1 << 14, 5);
+        final SpaceSaving frequent;
+
+        Sketch(int top) {
+            this.frequent = new SpaceSaving(top * COUNTERS_PER_TOP_VALUE);
+        }
+
+        void add(String value) {
+            distinct.add(value);
+            frequencies.add(value);
+            frequent.add(value);
+        }
+
+        void merge(Sketch other) {
+            distinct.merge(other.distinct);
+            frequencies.merge(other.frequencies);
+            frequent.merge(other.frequent);
+        }
+
+        /**
+         * @return the most frequent values, each with the lesser of its Space-Saving count and Count-Min estimate,
+         * both of which are never less than the true count
+         */
+        Map<String, Integer> top(int n) {
+            Map<String, Integer> top = new HashMap<>();
+            frequent.top(n).forEach((value, count) -> top.put(value, (int) Math.min(Integer.MAX_VALUE, Math.min(count, frequencies.estimate(value)))));
+            return top;
+        }
+    }
+
+    private Counts countChunks(FileChannel channel, long[] bounds) throws IOException {
+        ForkJoinPool pool = parallelism == ForkJoinPool.getCommonPoolParallelism() ? ForkJoinPool.commonPool() : new ForkJoinPool(parallelism);
+        try {
+            List<Future<Counts>> futures = new ArrayList<>();
+            for (int i = 0; i < bounds.length - 1; i++) {
+                long from = bounds[i], to = bounds[i + 1];
+                futures.add(pool.submit(() -> countChunk(channel, from, to)));
+            }
+            Counts counts = newCounts();
+            for (Future<Counts> future : futures) {
+                counts.add(future.get());
+            }
+            return counts;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Counting interrupted", e);
+        } finally {
+            if (pool != ForkJoinPool.commonPool()) {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Split a file into chunks, a few for each thread so that a slow chunk doesn't hold up the others, each ending
+     * after a line break
+     *
+     * @return the bounds of the chunks, starting with from and ending with to
+     */
+    private long[] split(FileChannel channel, long from, long to) throws IOException {
+        long size = to - from;
+        long chunks = Math.min(size / MIN_CHUNK_SIZE, parallelism * 4L);
+        chunks = Math.max(1, Math.max(chunks, (size + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE));
+        long[] bounds = new long[(int) chunks + 1];
+        bounds[0] = from;
+        bounds[bounds.length - 1] = to;
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 13);
+        for (int i = 1; i < chunks; i++) {
+            bounds[i] = Math.max(bounds[i - 1], nextLine(channel, from + size * i / chunks, to, buffer));
+        }
+        return bounds;
+    }
+
+    /**
+     * @return the position after the first line break at or after a position, or the end of the range
+     */
+    private static long nextLine(FileChannel channel, long position, long to, ByteBuffer buffer) throws IOException {
+        while (position < to) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return to;
+    }
+
+    /**
+     * Count the lines of a buffer that end with a line break, decoding each line into the same byte array
+     *
+     * @param end whether the buffer ends at the end of the range, in which case the last line may have no line break
+     * @return the position after the last line counted
+     */
+    private int countLines(ByteBuffer buffer, Counts counts, boolean end) {
+        byte[] line = new byte[1 << 10];
+        int start = 0;
+        int limit = buffer.limit();
+        for (int i = 0; i <= limit; i++) {
+            if (i == limit ? end && i > start : buffer.get(i) == '\n') {
+                int length = i > start && buffer.get(i - 1) == '\r' ? i - start - 1 : i - start;
+                if (length > line.length) {
+                    line = new byte[Math.max(length, line.length * 2)];
+                }
+                buffer.position(start);
+                buffer.get(line, 0, length);
+                countLine(new String(line, 0, length, charset), counts);
+                start = i + 1;
+            }
+        }
+        return Math.min(start, limit);
+    }
+}
@@ -0,0 +1,365 @@
+package net.ivanhjc.utility.file;
+
+import com.google.gson.Gson;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows a growing log file and keeps counting the parameters of the lines appended to it with a {@link LogCounter},
+ * like "tail -F" does, so the counts are always up to date without counting the whole file again. For example:
+ * <pre>
+ * {@code
+ * LogFollower follower = new LogFollower(new LogCounter(LogCounter.Format.JSON, "UserID"), "requests.log")
+ *         .setBuckets(60 * 1000, 60)
+ *         .setCheckpoint("requests.checkpoint", 10 * 1000);
+ * follower.follow(1000);
+ * ...
+ * Map<String, Integer> users = follower.getTotal().getCounts("UserID");
+ * }
+ * </pre>
+ * Each {@link #poll()} counts the complete lines written since the last poll, leaving a line still being written to
+ * the next poll. The follower notices when the file is rotated, either by moving it away and creating a new file at
+ * the path, in which case the rest of the old file is counted before following the new one from its beginning, or by
+ * truncating it, in which case the file is followed from its beginning again.
+ * <p>
+ * The counts can be divided into buckets of a fixed length of time by the time the lines are counted, and the counts
+ * with the position in the file can be saved in a checkpoint file from time to time, from which a new follower of the
+ * same file continues after a restart.
+ */
+public class LogFollower implements Closeable {
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final LogCounter counter;
+    private final Path path;
+    private long bucketMillis;
+    private int maxBuckets;
+    private Path checkpoint;
+    private long checkpointMillis;
+
+    private FileChannel channel;
+    /**
+     * The key of the open file that tells it from a new file at the same path, null if the file system has no keys
+     */
+    private Object fileKey;
+    private long position;
+    private LogCounter.Counts total;
+    /**
+     * The counts of each bucket by its start time
+     */
+    private final TreeMap<Long, LogCounter.Counts> buckets = new TreeMap<>();
+    private long lastCheckpoint;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param counter the counter of the lines
+     * @param file    path of the file to follow, which may not exist yet
+     */
+    public LogFollower(LogCounter counter, String file) {
+        this.counter = counter;
+        this.path = Paths.get(file);
+        this.total = counter.newCounts();
+    }
+
+    /**
+     * Divide the counts into buckets of time
+     *
+     * @param bucketMillis the length of time of each bucket in milliseconds
+     * @param maxBuckets   the number of latest buckets to keep, the older ones are dropped
+     */
+    public LogFollower setBuckets(long bucketMillis, int maxBuckets) {
+        if (bucketMillis <= 0 || maxBuckets <= 0) {
+            throw new IllegalArgumentException("The length and the number of buckets should be positive: " + bucketMillis + ", " + maxBuckets);
+        }
+        this.bucketMillis = bucketMillis;
+        this.maxBuckets = maxBuckets;
+        return this;
+    }
+
+    /**
+     * Save the counts and the position in the file to a checkpoint file after a poll if some time has passed since
+     * the last one. If the checkpoint file exists, the follower continues from it, unless the file it was saved for
+     * has been rotated since.
+     *
+     * @param file           path of the checkpoint file
+     * @param intervalMillis the least time between two checkpoints in milliseconds
+     */
+    public LogFollower setCheckpoint(String file, long intervalMillis) throws IOException {
+        this.checkpoint = Paths.get(file);
+        this.checkpointMillis = intervalMillis;
+        if (Files.exists(checkpoint)) {
+            restore();
+        }
+        return this;
+    }
+
+    /**
+     * Count the lines appended since the last poll
+     *
+     * @return the number of lines counted
+     */
+    public synchronized long poll() throws IOException {
+        long lines = 0;
+        BasicFileAttributes attributes = readAttributes();
+        if (channel != null && (attributes == null || !sameFile(attributes))) {
+            // The file has been moved away, count the rest of it before following the new one
+            lines += countNewLines();
+            closeChannel();
+            position = 0;
+        }
+        if (channel == null) {
+            if (attributes == null) {
+                return lines;
+            }
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            fileKey = attributes.fileKey();
+        }
+        if (channel.size() < position) {
+            LOG.info("{} is truncated, following it from the beginning", path);
+            position = 0;
+        }
+        lines += countNewLines();
+        if (checkpoint != null && System.currentTimeMillis() - lastCheckpoint >= checkpointMillis) {
+            saveCheckpoint();
+        }
+        return lines;
+    }
+
+    /**
+     * Poll the file at a fixed interval in a background thread until the follower is closed. An error of a poll is
+     * logged and the next poll tries again.
+     *
+     * @param intervalMillis the time between two polls in milliseconds
+     * @return this follower
+     */
+    public synchronized LogFollower follow(long intervalMillis) {
+        if (scheduler != null) {
+            throw new IllegalStateException("Already following " + path);
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "LogFollower-" + path.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                poll();
+            } catch (IOException e) {
+                LOG.error("Failed to poll " + path, e);
+            }
+        }, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * @return a copy of the counts of all lines counted so far
+     */
+    public synchronized LogCounter.Counts getTotal() {
+        return total.copy();
+    }
+
+    /**
+     * @return a copy of the counts of each bucket kept by its start time, from the oldest to the latest
+     */
+    public synchronized SortedMap<Long, LogCounter.Counts> getBuckets() {
+        SortedMap<Long, LogCounter.Counts> copy = new TreeMap<>();
+        buckets.forEach((start, counts) -> copy.put(start, counts.copy()));
+        return copy;
+    }
+
+    /**
+     * @return the position in the file up to which the lines are counted
+     */
+    public synchronized long getPosition() {
+        return position;
+    }
+
+    /**
+     * Stop following the file, saving a checkpoint if there is a checkpoint file
+     */
+    @Override
+    public void close() throws IOException {
+        ScheduledExecutorService scheduler;
+        synchronized (this) {
+            scheduler = this.scheduler;
+            this.scheduler = null;
+        }
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            if (checkpoint != null) {
+                saveCheckpoint();
+            }
+            closeChannel();
+        }
+    }
+
+    /**
+     * Count the complete lines between the position and the end of the open file
+     */
+    private long countNewLines() throws IOException {
+        long end = lastLineEnd(channel, position, channel.size());
+        if (end <= position) {
+            return 0;
+        }
+        LogCounter.Counts counts = counter.count(channel, position, end);
+        position = end;
+        total.add(counts);
+        if (bucketMillis > 0) {
+            long now = System.currentTimeMillis();
+            buckets.computeIfAbsent(now - now % bucketMillis, k -> counter.newCounts()).add(counts);
+            while (buckets.size() > maxBuckets) {
+                buckets.pollFirstEntry();
+            }
+        }
+        return counts.getLineCount();
+    }
+
+    /**
+     * @return the position after the last line break in a range of a file, or the start of the range if there is none
+     */
+    private static long lastLineEnd(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 13);
+        while (to > from) {
+            int length = (int) Math.min(buffer.capacity(), to - from);
+            buffer.clear().limit(length);
+            int read = channel.read(buffer, to - length);
+            for (int i = read - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return to - length + i + 1;
+                }
+            }
+            to -= length;
+        }
+        return from;
+    }
+
+    private BasicFileAttributes readAttributes() throws IOException {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private boolean sameFile(BasicFileAttributes attributes) {
+        return fileKey == null || fileKey.equals(attributes.fileKey());
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * The state of a follower saved in a checkpoint file as JSON
+     */
+    private static class Checkpoint {
+        String fileKey;
+        long position;
+        Snapshot total;
+        Map<Long, Snapshot> buckets = new LinkedHashMap<>();
+    }
+
+    /**
+     * The counts of a {@link LogCounter.Counts}, the values of each parameter in one array and their counts in another
+     * since the values may be null, or the sketches of each parameter in the sketch mode
+     */
+    private static class Snapshot {
+        long lines;
+        String[][] values;
+        int[][] counts;
+        LogCounter.Sketch[] sketches;
+        Map<Long, String> skippedLines;
+
+        Snapshot() {
+        }
+
+        Snapshot(LogCounter.Counts counts) {
+            this.lines = counts.lines;
+            this.skippedLines = counts.skippedLines;
+            this.sketches = counts.sketches;
+            this.values = new String[counts.params.length][];
+            this.counts = new int[counts.params.length][];
+            for (int i = 0; i < counts.params.length; i++) {
+                Map<String, int[]> map = counts.counts.get(i);
+                values[i] = new String[map.size()];
+                this.counts[i] = new int[map.size()];
+                int j = 0;
+                for (Map.Entry<String, int[]> entry : map.entrySet()) {
+                    values[i][j] = entry.getKey();
+                    this.counts[i][j++] = entry.getValue()[0];
+                }
+            }
+        }
+
+        LogCounter.Counts restore(LogCounter counter) {
+            LogCounter.Counts counts = counter.newCounts();
+            if (values.length != counts.params.length || (sketches == null) != (counts.sketches == null)) {
+                throw new IllegalArgumentException("The checkpoint has " + values.length + " parameters " + (sketches == null ? "without" : "with")
+                        + " sketches but " + counts.params.length + " are counted " + (counts.sketches == null ? "without" : "with") + " sketches");
+            }
+            if (sketches != null) {
+                System.arraycopy(sketches, 0, counts.sketches, 0, sketches.length);
+            }
+            counts.lines = lines;
+            counts.skippedLines.putAll(skippedLines);
+            for (int i = 0; i < values.length; i++) {
+                for (int j = 0; j < values[i].length; j++) {
+                    counts.counts.get(i).put(values[i][j], new int[]{this.counts[i][j]});
+                }
+            }
+            return counts;
+        }
+    }
+
+    private void saveCheckpoint() throws IOException {
+        Checkpoint state = new Checkpoint();
+        state.fileKey = fileKey == null ? null : fileKey.toString();
+        state.position = position;
+        state.total = new Snapshot(total);
+        buckets.forEach((start, counts) -> state.buckets.put(start, new Snapshot(counts)));
+        // Write to a temporary file first so a crash never leaves half a checkpoint
+        Path temp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        Files.write(temp, new Gson().toJson(state).getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        lastCheckpoint = System.currentTimeMillis();
+    }
+
+    private synchronized void restore() throws IOException {
+        Checkpoint state = new Gson().fromJson(new String(Files.readAllBytes(checkpoint), StandardCharsets.UTF_8), Checkpoint.class);
+        total = state.total.restore(counter);
+        buckets.clear();
+        state.buckets.forEach((start, snapshot) -> buckets.put(start, snapshot.restore(counter)));
+        BasicFileAttributes attributes = readAttributes();
+        Object key = attributes == null ? null : attributes.fileKey();
+        if (attributes != null && Objects.equals(state.fileKey, key == null ? null : key.toString()) && attributes.size() >= state.position) {
+            position = state.position;
+        } else {
+            LOG.info("{} has been rotated since the checkpoint {}, following it from the beginning", path, checkpoint);
+            position = 0;
+        }
+        lastCheckpoint = System.currentTimeMillis();
+        LOG.info("Restored {} lines of {} at position {} from {}", total.getLineCount(), path, position, new File(checkpoint.toString()).getAbsolutePath());
+    }
+}
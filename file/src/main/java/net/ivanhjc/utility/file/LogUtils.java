@@ -1,13 +1,8 @@
 package net.ivanhjc.utility.file;
 
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import net.ivanhjc.utility.data.MapUtils;
-import org.apache.commons.lang3.StringUtils;
 
-import java.io.File;
 import java.io.IOException;
-import java.util.*;
 
 /**
  * @author Ivan Huang on 2018/4/3 10:37
@@ -16,7 +11,7 @@ public class LogUtils {
 
     /**
      * Given a file containing JSON strings of the request parameters of a request mapping, counts the times of occurrence of certain parameters
-     * and outputs the results to the designated directory
+     * and outputs the results to the designated directory. The file is counted by a {@link LogCounter} over all processors.
      *
      * @param file   the file containing the requests parameters
      * @param outDir the output directory
@@ -24,60 +19,56 @@ public class LogUtils {
      * @throws IOException
      */
     public static void countReqParams(String file, String outDir, String... params) throws IOException {
-        Scanner sc = new Scanner(new File(file));
-        JsonParser parser = new JsonParser();
-        Map<String, Map<String, Integer>> maps = new HashMap<>();
-        for (String param : params) {
-            maps.put(param, new HashMap<>());
-        }
-        int skippedLn = 0;
-        Map<Integer, String> skippedLines = new HashMap<>();
-        while (sc.hasNext()) {
-            try {
-                skippedLn++;
-                String line = sc.nextLine();
-                JsonObject reqObj = parser.parse(line).getAsJsonObject();
-                for (String param : params) {
-                    String paramValue = reqObj.get(param) == null ? null : reqObj.get(param).getAsString();
-                    maps.get(param).merge(paramValue, 1, (a, b) -> a + b);
-                }
-            } catch (Exception e) {
-                skippedLines.put(skippedLn, e.getMessage());
-            }
-        }
+        writeCounts(new LogCounter(LogCounter.Format.JSON, params).count(file), outDir, params);
+    }
 
-        outDir = FileUtils.getDirPath(outDir);
-        for (String param : params) {
-            FileUtils.writeMapToFile(MapUtils.sortByValue(maps.get(param)), outDir, param + "Count", param, "times of occurrence");
-        }
-        FileUtils.writeMapToFile(MapUtils.sortByKey(skippedLines), outDir, "skippedLines", "line", "message");
+    /**
+     * Same as {@link #countReqParams(String, String, String...)} but in bounded memory for parameters with too many
+     * distinct values, by counting them with sketches as {@link LogCounter#setSketches(int)} does. Only the most
+     * frequent values are written, with estimated counts.
+     *
+     * @param file   the file containing the requests parameters
+     * @param outDir the output directory
+     * @param top    the number of most frequent values to write of each parameter
+     * @param params the params to count
+     * @throws IOException
+     */
+    public static void countReqParams(String file, String outDir, int top, String... params) throws IOException {
+        writeCounts(new LogCounter(LogCounter.Format.JSON, params).setSketches(top).count(file), outDir, params);
     }
 
+    /**
+     * Counts the times of occurrence of certain parameters written as "name:value," in the lines of a file and outputs
+     * the results to the designated directory
+     *
+     * @param file   the log file
+     * @param outDir the output directory
+     * @param params the params to count
+     * @throws IOException
+     */
     public static void countParams(String file, String outDir, String... params) throws IOException {
-        Scanner sc = new Scanner(new File(file));
-        Map<String, Map<String, Integer>> maps = new HashMap<>();
-        for (String param : params) {
-            maps.put(param, new HashMap<>());
-        }
-        int skippedLn = 0;
-        Map<Integer, String> skippedLines = new HashMap<>();
-        while (sc.hasNext()) {
-            try {
-                skippedLn++;
-                String line = sc.nextLine();
-                for (String param : params) {
-                    String paramValue = StringUtils.substringBetween(line, param + ":", ",");
-                    maps.get(param).merge(paramValue, 1, (a, b) -> a + b);
-                }
-            } catch (Exception e) {
-                skippedLines.put(skippedLn, e.getMessage());
-            }
-        }
+        writeCounts(new LogCounter(LogCounter.Format.KEY_VALUE, params).count(file), outDir, params);
+    }
+
+    /**
+     * Same as {@link #countParams(String, String, String...)} but in bounded memory, as
+     * {@link #countReqParams(String, String, int, String...)} does
+     *
+     * @param file   the log file
+     * @param outDir the output directory
+     * @param top    the number of most frequent values to write of each parameter
+     * @param params the params to count
+     * @throws IOException
+     */
+    public static void countParams(String file, String outDir, int top, String... params) throws IOException {
+        writeCounts(new LogCounter(LogCounter.Format.KEY_VALUE, params).setSketches(top).count(file), outDir, params);
+    }
 
+    private static void writeCounts(LogCounter.Counts counts, String outDir, String... params) throws IOException {
         outDir = FileUtils.getDirPath(outDir);
         for (String param : params) {
-            FileUtils.writeMapToFile(MapUtils.sortByValue(maps.get(param)), outDir, param + "Count", param, "times of occurrence");
+            FileUtils.writeMapToFile(MapUtils.sortByValue(counts.getCounts(param), true), outDir, param + "Count", param, "times of occurrence");
         }
-        FileUtils.writeMapToFile(MapUtils.sortByKey(skippedLines), outDir, "skippedLines", "line", "message");
+        FileUtils.writeMapToFile(MapUtils.sortByKey(counts.getSkippedLines()), outDir, "skippedLines", "line", "message");
     }
 }
@@ -11,14 +11,18 @@ import org.apache.poi.poifs.filesystem.POIFSFileSystem;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.security.GeneralSecurityException;
 import java.sql.Connection;
 import java.sql.DriverManager;
@@ -42,7 +46,11 @@ public class POIUtils {
     private static final String FIELD_DELIMITER = ".";
     private static final String DEFAULT_DATE_FORMAT = "yyyy/m/d";
     private static final String DEFAULT_FILE_NAME = "output.xlsx";
-    private static final SimpleDateFormat COMMON_DATE_FORMATTER = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    /**
+     * The default number of rows kept in memory by a workbook opened with {@link #openStreaming()}
+     */
+    private static final int DEFAULT_ROW_WINDOW = 100;
+    static final SimpleDateFormat COMMON_DATE_FORMATTER = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
     /**
      * The workbook to work on
      */
@@ -75,6 +83,11 @@ public class POIUtils {
     private List<Header> allHeaders; // All headers from left to right and from bottom to top
     private String saveDir;
     private String fileName;
+    /**
+     * Cell styles of the working workbook shared by all cells of the same data format, keyed by the format. A workbook
+     * can hold no more than 64000 styles so they must not be created per cell.
+     */
+    private final Map<String, CellStyle> dataFormatStyles = new HashMap<>();
 
     public POIUtils() {
     }
@@ -86,6 +99,35 @@ public class POIUtils {
     public POIUtils open() {
         this.workbook = new XSSFWorkbook();
         this.sheet = workbook.createSheet("Sheet1");
+        this.dataFormatStyles.clear();
+        return this;
+    }
+
+    /**
+     * Create a new workbook in streaming mode keeping the default number of 100 rows in memory. See
+     * {@link #openStreaming(int)}.
+     */
+    public POIUtils openStreaming() {
+        return openStreaming(DEFAULT_ROW_WINDOW);
+    }
+
+    /**
+     * Create a new workbook in streaming mode with the default name "output.xlsx" and a new sheet in it named "Sheet1".
+     * Only the last {@code rowWindow} rows are kept in memory, older rows are flushed to a temporary file as new rows
+     * are created, so tables of millions of rows can be exported by {@link #createTable(LinkedHashMap, Class, Iterable)}
+     * with a fixed memory budget. After you're done you should call {@link #saveAs()} to save the workbook, which also
+     * deletes the temporary file.
+     * <p>
+     * Flushed rows can no longer be accessed, so the window must be larger than the number of header rows as well as
+     * the number of rows taken by any single element of the data, i.e. the rows of its nested lists. The columns are
+     * sized to fit the headers only since the data rows are flushed by the time the table is done.
+     *
+     * @param rowWindow the number of rows kept in memory
+     */
+    public POIUtils openStreaming(int rowWindow) {
+        this.workbook = new SXSSFWorkbook(rowWindow);
+        this.sheet = workbook.createSheet("Sheet1");
+        this.dataFormatStyles.clear();
         return this;
     }
 
@@ -101,9 +143,24 @@ public class POIUtils {
         if (this.sheet == null) {
             this.sheet = this.workbook.createSheet(sheet);
         }
+        this.dataFormatStyles.clear();
         return this;
     }
 
+    /**
+     * Open a sheet of a workbook in read-only streaming mode. Unlike {@link #open(String, String)} the workbook isn't
+     * loaded into memory, instead the rows are parsed one at a time from the sheet XML as the returned reader is
+     * iterated, so reading a sheet takes constant memory regardless of its size. The cell values are the same as
+     * returned by {@link #getCellValue(Cell)}. The reader should be closed after use.
+     *
+     * @param workbook path of the workbook, relative or absolute
+     * @param sheet    name of the sheet, which must exist
+     * @return a reader of the rows of the sheet
+     */
+    public static SheetReader read(String workbook, String sheet) throws IOException {
+        return new SheetReader(workbook, sheet);
+    }
+
     /**
      * Save the workbook to the default location "classpath/target/output.xlsx".
      *
@@ -128,9 +185,12 @@ public class POIUtils {
             int suffixIdx = name.lastIndexOf('.');
             file = new File(dir + "/" + name.substring(0, suffixIdx) + "_" + date + name.substring(suffixIdx));
         }
-        FileOutputStream fos = new FileOutputStream(file);
-        workbook.write(fos);
-        fos.close();
+        try (FileOutputStream fos = new FileOutputStream(file)) {
+            workbook.write(fos);
+        }
+        if (isStreaming()) {
+            ((SXSSFWorkbook) workbook).dispose();
+        }
         log.info("File saved -> " + file.getAbsolutePath());
         return file;
     }
@@ -151,7 +211,18 @@ public class POIUtils {
      * Closes the workbook without saving the changes
      */
     public void closeToDiscard() {
-        ((XSSFWorkbook) this.workbook).getPackage().revert();
+        if (isStreaming()) {
+            ((SXSSFWorkbook) this.workbook).dispose();
+        } else {
+            ((XSSFWorkbook) this.workbook).getPackage().revert();
+        }
+    }
+
+    /**
+     * @return true if the working workbook was opened by {@link #openStreaming(int)}
+     */
+    public boolean isStreaming() {
+        return workbook instanceof SXSSFWorkbook;
     }
 
     //======================Sheet level operations======================
@@ -210,6 +281,16 @@ public class POIUtils {
         return createTable(getFieldMap(headerMap), data);
     }
 
+    /**
+     * Create a table with the supplied header specifier (fieldMap) and data of the given type. See
+     * {@link #createTable(LinkedHashMap, Class, Iterable)}.
+     *
+     * @param headerMap formatted as {@code Name:name,Gender:sex,...,Role:role,Role.Name:role.name,...}
+     */
+    public <T> POIUtils createTable(String headerMap, Class<?> type, Iterable<T> data) throws Exception {
+        return createTable(getFieldMap(headerMap), type, data);
+    }
+
     /**
      * Create a table with the supplied header specifier (fieldMap) and the corresponding list of data. A use case is
      * given as below:<p><br>
@@ -265,14 +346,34 @@ public class POIUtils {
      *
      */
     public <T> POIUtils createTable(LinkedHashMap<String, String> headerMap, List<T> data) throws Exception {
+        return createTable(headerMap, data.get(0).getClass(), data);
+    }
+
+    /**
+     * Create a table with the supplied header specifier (fieldMap) and data of the given type. The data is iterated
+     * only once and each element is written as soon as it's obtained, so with a workbook opened by
+     * {@link #openStreaming(int)} the data can be supplied lazily, e.g. from a database cursor, without holding all
+     * of it in memory. See {@link #createTable(LinkedHashMap, List)} for the format of the headers.
+     *
+     * @param headerMap an ordered mapping of headers and their corresponding class fields
+     * @param type      the class of the elements of the data, whose fields the headers are mapped to
+     * @param data      data to write to the table
+     */
+    public <T> POIUtils createTable(LinkedHashMap<String, String> headerMap, Class<?> type, Iterable<T> data) throws Exception {
         List<String> names = new ArrayList<>(headerMap.keySet());
         List<String> properties = new ArrayList<>(headerMap.values());
         this.headerEndRow = tableStartRow;
-        this.headers = createHeaders(getOrCreateRow(tableStartRow), tableStartCol, names, properties, data.get(0).getClass());
+        this.headers = createHeaders(getOrCreateRow(tableStartRow), tableStartCol, names, properties, type);
         setParameters();
         resetDataRows();
-        createDataRows(data);
-        setHeaderStyle(tableStartRow, tableStartCol, headerEndRow, headerEndCol);
+        if (isStreaming()) {
+            // The header rows would be flushed by the data rows so they must be styled first
+            setHeaderStyle(tableStartRow, tableStartCol, headerEndRow, headerEndCol);
+            createDataRows(data);
+        } else {
+            createDataRows(data);
+            setHeaderStyle(tableStartRow, tableStartCol, headerEndRow, headerEndCol);
+        }
         return this;
     }
 
@@ -323,7 +424,9 @@ public class POIUtils {
      */
     public POIUtils venn(int headerRow, int startRow, int col1, int col2, boolean ignoreCase) {
         Map<Integer, List<String>> columns = getColumns(startRow, col1, col2);
-        List<List<String>> lists = ListUtils.venn(columns.get(col1), columns.get(col2), ignoreCase ? String::compareToIgnoreCase : null);
+        List<List<String>> lists = ignoreCase
+                ? ListUtils.venn(columns.get(col1), columns.get(col2), String::compareToIgnoreCase)
+                : ListUtils.venn(columns.get(col1), columns.get(col2));
         columns.put(col2 + 1, lists.get(0));
         columns.put(col2 + 2, lists.get(1));
         columns.put(col2 + 3, lists.get(2));
@@ -661,7 +764,7 @@ public class POIUtils {
                 int newStartCol = lastHeader.getCell().getColumnIndex();
 //                int newEndCol = newStartCol + nextNames.size() - 1 - subHeaderNum;
 
-                List<Header> subHeaders = createHeaders(nextRow, newStartCol, nextNames, nextProperties, lastHeader.getField().getType());
+                List<Header> subHeaders = createHeaders(nextRow, newStartCol, nextNames, nextProperties, getValueType(lastHeader.getField()));
                 lastHeader.setSubHeaders(subHeaders);
 
 
@@ -701,6 +804,20 @@ public class POIUtils {
         return method;
     }
 
+    /**
+     * Get the class whose fields the sub-headers of the given field are mapped to, which is the element type if the
+     * field is a list, e.g. Car for {@code List<Car> cars}, or the type of the field otherwise
+     */
+    private static Class<?> getValueType(Field field) {
+        if (List.class.isAssignableFrom(field.getType()) && field.getGenericType() instanceof ParameterizedType) {
+            Type elementType = ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+            if (elementType instanceof Class) {
+                return (Class<?>) elementType;
+            }
+        }
+        return field.getType();
+    }
+
     private Row getNextRow(Row row) {
         return sheet.getRow(row.getRowNum() + 1);
     }
@@ -723,40 +840,40 @@ public class POIUtils {
         startCell.setCellStyle(style);
     }
 
-    private <T> void createDataRows(List<T> data) throws InvocationTargetException, IllegalAccessException {
-        for (int i = 0; i < data.size(); i++) {
-            T rowData = data.get(i);
-            int temp = dataRows;
-            createDataRow(getOrCreateRow(headerEndRow + dataRows), headers, rowData);
-            if (dataRows == temp) // dataRows may not be incremented if all list values of this rowData are 0 length.
-                dataRows++;
+    private <T> void createDataRows(Iterable<T> data) throws IllegalAccessException {
+        RowPlan plan = RowPlan.compile(headers);
+        for (T rowData : data) {
+            dataRows += createDataRow(getOrCreateRow(headerEndRow + dataRows), plan, rowData);
         }
     }
 
-    private void createDataRow(Row row, List<Header> headers, Object data) throws InvocationTargetException, IllegalAccessException {
-        for (Header header : headers) {
-//            System.out.println(header + ", " + data);
-            if (header.getField() == null) { //If a header has no associated method, it's either (1) a header merely used to group a list of subheaders, or (2) a header that temporarily has no value.
-                if (header.getSubHeaders() != null) //It's (1)
-                    createDataRow(row, header.getSubHeaders(), data);
-                continue;
-            }
-            Object value = header.getField().get(data);
-            if (header.getSubHeaders() != null) {
-                if (value instanceof List) {
-                    Row nextRow = row;
-                    for (Object obj : (List) value) {
-                        createDataRow(nextRow, header.getSubHeaders(), obj);
-                        nextRow = getNextDataRow(nextRow, obj);
-                    }
-                } else if (value != null) {
-                    createDataRow(row, header.getSubHeaders(), value);
+    /**
+     * Write the values of an object to the row, as well as to the rows below it if the object contains lists
+     *
+     * @param row  the first row of the object
+     * @param plan the plan of the class of the object
+     * @param data the object
+     * @return the number of rows taken by the object, which is at least 1, and for each list in the object it's the
+     * sum of the rows taken by its elements
+     */
+    private int createDataRow(Row row, RowPlan plan, Object data) {
+        int rows = 1;
+        for (int i = 0; i < plan.size(); i++) {
+            Object value = plan.getValue(i, data);
+            RowPlan subPlan = plan.getSubPlan(i);
+            if (subPlan == null) {
+                writeValueToCell(value, row.createCell(plan.getColumn(i)));
+            } else if (value instanceof List) {
+                int offset = 0;
+                for (Object element : (List<?>) value) {
+                    offset += element == null ? 1 : createDataRow(getOrCreateRow(row.getRowNum() + offset), subPlan, element);
                 }
-            } else {
-                Cell cell = row.createCell(header.getCell().getColumnIndex());
-                writeValueToCell(value, cell);
+                rows = Math.max(rows, offset);
+            } else if (value != null) {
+                rows = Math.max(rows, createDataRow(row, subPlan, value));
             }
         }
+        return rows;
     }
 
     /**
@@ -782,50 +899,23 @@ public class POIUtils {
             cell.setCellValue("Unknown type");
     }
 
-    private Row getNextDataRow(Row row, Object object) throws InvocationTargetException, IllegalAccessException {
-        int nextDataRowIdx = row.getRowNum() + getNumOfRows(object);
-        Row nextDataRow = sheet.getRow(nextDataRowIdx);
-        if (nextDataRow == null) {
-            nextDataRow = sheet.createRow(nextDataRowIdx);
-            dataRows++;
-        }
-        return nextDataRow;
-    }
-
-    private int getNumOfRows(Object object) throws InvocationTargetException, IllegalAccessException {
-        int size = 1;
-        Method[] methods = object.getClass().getDeclaredMethods();
-        for (Method method : methods) {
-//            System.out.println(method.getName());
-            if (method.getName().contains("get")) {
-                Object property = method.invoke(object);
-                if (property != null) {
-                    int temp = 0;
-                    if (property instanceof List) {
-                        for (Object element : (List) property) {
-                            int temp2 = getNumOfRows(element);
-                            temp += temp2;
-                        }
-                    } else if (!(property instanceof Integer)
-                            && !(property instanceof String)
-                            && !(property instanceof Double)
-                            && !(property instanceof Date)) {
-
-                        temp = getNumOfRows(property);
-                    }
-                    if (temp > size)
-                        size = temp;
-                }
-            }
-        }
-        return size;
-    }
-
     private void setDateValue(Cell cell, Date value) {
         cell.setCellValue(value);
-        CellStyle style = workbook.createCellStyle();
-        style.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat((DEFAULT_DATE_FORMAT)));
-        cell.setCellStyle(style);
+        cell.setCellStyle(getDataFormatStyle(DEFAULT_DATE_FORMAT));
+    }
+
+    /**
+     * Get the cell style of the given data format, which is created once per workbook and shared by all cells of the
+     * format
+     *
+     * @param format data format such as "yyyy/m/d"
+     */
+    private CellStyle getDataFormatStyle(String format) {
+        return dataFormatStyles.computeIfAbsent(format, f -> {
+            CellStyle style = workbook.createCellStyle();
+            style.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat(f));
+            return style;
+        });
     }
 
     private void setParameters() {
@@ -853,9 +943,16 @@ public class POIUtils {
         mergeColCells(startRow, endRow, startCol, endCol);
         setAllBorders(startRow, endRow, startCol, endCol);
         sheet.createFreezePane(0, endRow + 1);
+        if (isStreaming()) {
+            // Column widths are only computed on the rows still in memory, i.e. the header rows
+            ((SXSSFSheet) sheet).trackAllColumnsForAutoSizing();
+        }
         for (int i = startCol; i <= endCol; i++) {
             sheet.autoSizeColumn(i, true);
         }
+        if (isStreaming()) {
+            ((SXSSFSheet) sheet).untrackAllColumnsForAutoSizing();
+        }
     }
 
     private void setAllBorders(int firstRow, int lastRow, int firstCol, int lastCol) {
@@ -0,0 +1,106 @@
+package net.ivanhjc.utility.file;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The compiled form of a list of {@link Header}s used to write the data rows of a table. It's built once per table
+ * from the header tree and holds, in header order, a getter of each value to write along with the column the value
+ * is written to, or the plan of its sub-headers if it has any. Each level of the tree has its own plan for the class
+ * of the data on that level, and headers merely used to group sub-headers are flattened into their parent's plan,
+ * so writing a row doesn't need any reflective lookup.
+ *
+ * @see POIUtils#createTable(java.util.LinkedHashMap, Class, Iterable)
+ */
+class RowPlan {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    /**
+     * Getters of the values, each typed as {@code (Object)Object}
+     */
+    private final MethodHandle[] getters;
+    /**
+     * The column each value is written to, or -1 if the value has sub-headers
+     */
+    private final int[] columns;
+    /**
+     * The plan of the sub-headers of each value, or null if the value has no sub-headers
+     */
+    private final RowPlan[] subPlans;
+
+    private RowPlan(List<MethodHandle> getters, List<Integer> columns, List<RowPlan> subPlans) {
+        this.getters = getters.toArray(new MethodHandle[0]);
+        this.columns = columns.stream().mapToInt(Integer::intValue).toArray();
+        this.subPlans = subPlans.toArray(new RowPlan[0]);
+    }
+
+    /**
+     * Compile the headers into a plan. The fields of the headers must have been made accessible.
+     */
+    static RowPlan compile(List<Header> headers) throws IllegalAccessException {
+        List<MethodHandle> getters = new ArrayList<>();
+        List<Integer> columns = new ArrayList<>();
+        List<RowPlan> subPlans = new ArrayList<>();
+        compile(headers, getters, columns, subPlans);
+        return new RowPlan(getters, columns, subPlans);
+    }
+
+    private static void compile(List<Header> headers, List<MethodHandle> getters, List<Integer> columns, List<RowPlan> subPlans) throws IllegalAccessException {
+        for (Header header : headers) {
+            if (header.getField() == null) {
+                // Either a header grouping sub-headers that obtain values from the same object, or a header without value
+                if (header.getSubHeaders() != null) {
+                    compile(header.getSubHeaders(), getters, columns, subPlans);
+                }
+                continue;
+            }
+
+            getters.add(LOOKUP.unreflectGetter(header.getField()).asType(GETTER_TYPE));
+            if (header.getSubHeaders() != null) {
+                columns.add(-1);
+                subPlans.add(compile(header.getSubHeaders()));
+            } else {
+                columns.add(header.getCell().getColumnIndex());
+                subPlans.add(null);
+            }
+        }
+    }
+
+    /**
+     * @return the number of values of the plan
+     */
+    int size() {
+        return getters.length;
+    }
+
+    /**
+     * Get the i-th value from the object
+     */
+    Object getValue(int i, Object data) {
+        try {
+            return (Object) getters[i].invokeExact(data);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the column the i-th value is written to, or -1 if it has sub-headers
+     */
+    int getColumn(int i) {
+        return columns[i];
+    }
+
+    /**
+     * @return the plan of the sub-headers of the i-th value, or null if it has no sub-headers
+     */
+    RowPlan getSubPlan(int i) {
+        return subPlans[i];
+    }
+}
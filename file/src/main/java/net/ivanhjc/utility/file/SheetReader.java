@@ -0,0 +1,308 @@
+package net.ivanhjc.utility.file;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.SAXException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * A read-only, forward-only reader of one sheet of an xlsx workbook. Instead of building the whole workbook in memory
+ * like {@link org.apache.poi.xssf.usermodel.XSSFWorkbook} does, it pulls the rows one at a time from the sheet XML, so
+ * the memory used stays the same no matter how many rows the sheet has. Only the shared strings table and the cell
+ * styles are loaded. The cell values are returned in the same form as {@link POIUtils#getCellValue(org.apache.poi.ss.usermodel.Cell)}.
+ * <p>
+ * Rows that have no entry in the sheet XML (empty rows) are not returned, check {@link SheetRow#getRowNum()} to find
+ * out which row is returned. The reader should be closed after use.
+ *
+ * @see POIUtils#read(String, String)
+ */
+public class SheetReader implements Iterator<SheetReader.SheetRow>, Closeable {
+    private final OPCPackage pkg;
+    private final InputStream sheetStream;
+    private final XMLStreamReader xml;
+    private final ReadOnlySharedStringsTable strings;
+    private final StylesTable styles;
+    private final boolean date1904;
+    /**
+     * Whether a style index denotes a date format, cached since the check parses the format string
+     */
+    private final Map<Integer, Boolean> dateStyles = new HashMap<>();
+    private SheetRow next;
+    private int lastRowNum = -1;
+
+    /**
+     * Open a sheet for reading
+     *
+     * @param workbook path of the workbook, relative or absolute
+     * @param sheet    name of the sheet
+     * @throws IllegalArgumentException if the sheet doesn't exist
+     */
+    public SheetReader(String workbook, String sheet) throws IOException {
+        OPCPackage pkg = null;
+        InputStream sheetStream = null;
+        try {
+            pkg = OPCPackage.open(workbook, PackageAccess.READ);
+            XSSFReader reader = new XSSFReader(pkg);
+            this.strings = new ReadOnlySharedStringsTable(pkg);
+            this.styles = reader.getStylesTable();
+            try (InputStream workbookStream = reader.getWorkbookData()) {
+                this.date1904 = isDate1904(workbookStream);
+            }
+            XSSFReader.SheetIterator iterator = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (iterator.hasNext()) {
+                InputStream stream = iterator.next();
+                if (sheet.equals(iterator.getSheetName())) {
+                    sheetStream = stream;
+                    break;
+                }
+                stream.close();
+            }
+            if (sheetStream == null) {
+                throw new IllegalArgumentException("Sheet \"" + sheet + "\" not found in " + workbook);
+            }
+            this.xml = XMLInputFactory.newInstance().createXMLStreamReader(sheetStream);
+            this.pkg = pkg;
+            this.sheetStream = sheetStream;
+        } catch (OpenXML4JException | SAXException | XMLStreamException e) {
+            closeQuietly(sheetStream, pkg);
+            throw new IOException("Failed to open " + workbook, e);
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(sheetStream, pkg);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = readRow();
+            } catch (XMLStreamException e) {
+                throw new RuntimeException("Failed to read row " + (lastRowNum + 1), e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public SheetRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        SheetRow row = next;
+        next = null;
+        return row;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            sheetStream.close();
+            pkg.revert();
+        }
+    }
+
+    /**
+     * A row of the sheet holding the values of its cells
+     */
+    public static class SheetRow {
+        private final int rowNum;
+        private final String[] values;
+
+        SheetRow(int rowNum, String[] values) {
+            this.rowNum = rowNum;
+            this.values = values;
+        }
+
+        /**
+         * @return the index of the row, 0-based
+         */
+        public int getRowNum() {
+            return rowNum;
+        }
+
+        /**
+         * @return the index of the last cell of the row plus one, or -1 if the row contains no cells, as
+         * {@link org.apache.poi.ss.usermodel.Row#getLastCellNum()} does
+         */
+        public int getLastCellNum() {
+            return values.length == 0 ? -1 : values.length;
+        }
+
+        /**
+         * @param colId index of the column, 0-based
+         * @return the value of the cell, or null if the cell is blank or doesn't exist
+         */
+        public String getCellValue(int colId) {
+            return colId < values.length ? values[colId] : null;
+        }
+    }
+
+    private SheetRow readRow() throws XMLStreamException {
+        while (xml.hasNext()) {
+            if (xml.next() != XMLStreamConstants.START_ELEMENT || !"row".equals(xml.getLocalName())) {
+                continue;
+            }
+
+            String ref = xml.getAttributeValue(null, "r");
+            lastRowNum = ref == null ? lastRowNum + 1 : Integer.parseInt(ref) - 1;
+            List<String> values = new ArrayList<>();
+            int col = -1;
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.END_ELEMENT && "row".equals(xml.getLocalName())) {
+                    break;
+                }
+                if (event == XMLStreamConstants.START_ELEMENT && "c".equals(xml.getLocalName())) {
+                    String cellRef = xml.getAttributeValue(null, "r");
+                    col = cellRef == null ? col + 1 : getColumnIndex(cellRef);
+                    String value = readCell(xml.getAttributeValue(null, "t"), xml.getAttributeValue(null, "s"));
+                    while (values.size() <= col) {
+                        values.add(null);
+                    }
+                    values.set(col, value);
+                }
+            }
+            return new SheetRow(lastRowNum, values.toArray(new String[0]));
+        }
+        return null;
+    }
+
+    /**
+     * Read the content of the current "c" element and convert it as {@link POIUtils#getCellValue(org.apache.poi.ss.usermodel.Cell)}
+     * does. The reader is positioned at the end of the element afterwards.
+     *
+     * @param type  the "t" attribute of the cell
+     * @param style the "s" attribute of the cell
+     */
+    private String readCell(String type, String style) throws XMLStreamException {
+        String value = null;
+        StringBuilder inlineString = null;
+        boolean formula = false;
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.END_ELEMENT && "c".equals(xml.getLocalName())) {
+                break;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            switch (xml.getLocalName()) {
+                case "v":
+                    value = xml.getElementText();
+                    break;
+                case "f":
+                    formula = true;
+                    xml.getElementText();
+                    break;
+                case "t":
+                    if (inlineString == null) {
+                        inlineString = new StringBuilder();
+                    }
+                    inlineString.append(xml.getElementText());
+                    break;
+                default:
+            }
+        }
+
+        if (formula || "e".equals(type)) {
+            return "Unknown";
+        }
+        if ("inlineStr".equals(type)) {
+            return inlineString == null ? null : inlineString.toString();
+        }
+        if (value == null) {
+            return null;
+        }
+        if ("s".equals(type)) {
+            return strings.getEntryAt(Integer.parseInt(value));
+        }
+        if ("str".equals(type)) {
+            return value;
+        }
+        if ("b".equals(type)) {
+            return String.valueOf("1".equals(value));
+        }
+
+        double number = Double.parseDouble(value);
+        if (isDateStyle(style) && DateUtil.isValidExcelDate(number)) {
+            return POIUtils.COMMON_DATE_FORMATTER.format(DateUtil.getJavaDate(number, date1904));
+        }
+        return String.valueOf(number);
+    }
+
+    private boolean isDateStyle(String style) {
+        if (style == null) {
+            return false;
+        }
+        return dateStyles.computeIfAbsent(Integer.parseInt(style), idx -> {
+            XSSFCellStyle cellStyle = styles.getStyleAt(idx);
+            return cellStyle != null && DateUtil.isADateFormat(cellStyle.getDataFormat(), cellStyle.getDataFormatString());
+        });
+    }
+
+    /**
+     * Convert the column letters of a cell reference to a column index, e.g. "A1" -> 0, "AB12" -> 27
+     */
+    private static int getColumnIndex(String cellRef) {
+        int col = 0;
+        for (int i = 0; i < cellRef.length(); i++) {
+            char c = cellRef.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            col = col * 26 + (c - 'A' + 1);
+        }
+        return col - 1;
+    }
+
+    private static boolean isDate1904(InputStream workbookStream) throws XMLStreamException {
+        XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(workbookStream);
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    if ("workbookPr".equals(reader.getLocalName())) {
+                        String value = reader.getAttributeValue(null, "date1904");
+                        return "1".equals(value) || "true".equals(value);
+                    }
+                    if ("sheets".equals(reader.getLocalName())) {
+                        return false;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void closeQuietly(InputStream stream, OPCPackage pkg) {
+        try {
+            if (stream != null) {
+                stream.close();
+            }
+        } catch (IOException ignored) {
+        }
+        if (pkg != null) {
+            pkg.revert();
+        }
+    }
+}
@@ -1,13 +1,22 @@
 package net.ivanhjc.utility.file;
 
+import com.google.gson.JsonParser;
+import net.ivanhjc.utility.data.MapUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.Test;
 
+import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.PrintWriter;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 /**
  * @author Ivan Huang on 2018/4/3 13:25
@@ -26,6 +35,100 @@ public class LogUtilsTest {
                 FileUtils.getClassPath().resolve("output").toString(), "orderId");
     }
 
+    @Test
+    public void logCounter() throws IOException {
+        File file = File.createTempFile("requests", ".log");
+        file.deleteOnExit();
+        Random random = new Random(1);
+        try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+            for (int i = 0; i < 1000000; i++) {
+                if (i % 100000 == 7) {
+                    writer.println("not json");
+                } else {
+                    writer.println("{\"UserID\": " + random.nextInt(1000) + ", \"Extra\": {\"a\": [1, 2]}, \"OrderID\": \"A" + random.nextInt(50000) + "\"}");
+                }
+            }
+        }
+
+        Map<String, Integer> expected = new HashMap<>();
+        JsonParser parser = new JsonParser();
+        long start = System.currentTimeMillis();
+        for (String line : Files.readAllLines(file.toPath())) {
+            try {
+                expected.merge(parser.parse(line).getAsJsonObject().get("OrderID").getAsString(), 1, Integer::sum);
+            } catch (Exception ignored) {
+            }
+        }
+        System.out.println("JsonParser: " + (System.currentTimeMillis() - start) + "ms");
+
+        for (int parallelism : new int[]{1, 4}) {
+            start = System.currentTimeMillis();
+            LogCounter.Counts counts = new LogCounter(LogCounter.Format.JSON, "UserID", "OrderID").setParallelism(parallelism).count(file.getPath());
+            System.out.println("LogCounter with parallelism " + parallelism + ": " + (System.currentTimeMillis() - start) + "ms, "
+                    + counts.getLineCount() + " lines, " + counts.getCounts("UserID").size() + " users, same order counts: "
+                    + expected.equals(counts.getCounts("OrderID")) + ", skipped " + counts.getSkippedLines());
+        }
+    }
+
+    @Test
+    public void logCounterSketches() throws IOException {
+        File file = File.createTempFile("requests", ".log");
+        file.deleteOnExit();
+        Random random = new Random(1);
+        Map<String, Integer> expected = new HashMap<>();
+        try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+            for (int i = 0; i < 2000000; i++) {
+                // A few hot tokens among a million rare ones
+                String token = random.nextInt(10) == 0 ? "hot" + random.nextInt(20) : "token" + random.nextInt(1000000);
+                expected.merge(token, 1, Integer::sum);
+                writer.println("{\"Token\": \"" + token + "\"}");
+            }
+        }
+        for (boolean sketches : new boolean[]{false, true}) {
+            long start = System.currentTimeMillis();
+            LogCounter.Counts counts = new LogCounter(LogCounter.Format.JSON, "Token").setSketches(sketches ? 10 : 0).setParallelism(4).count(file.getPath());
+            System.out.println((sketches ? "Sketches: " : "Exact: ") + (System.currentTimeMillis() - start) + "ms, distinct "
+                    + counts.getDistinctCount("Token") + " of " + expected.size());
+            System.out.println(MapUtils.topKByValue(counts.getCounts("Token"), 10));
+        }
+        System.out.println("Expected: " + MapUtils.topKByValue(expected, 10));
+    }
+
+    @Test
+    public void logFollower() throws IOException {
+        File dir = Files.createTempDirectory("logs").toFile();
+        File log = new File(dir, "requests.log");
+        String checkpoint = new File(dir, "requests.checkpoint").getPath();
+        LogCounter counter = new LogCounter(LogCounter.Format.JSON, "UserID");
+        LogFollower follower = new LogFollower(counter, log.getPath()).setBuckets(1000, 3).setCheckpoint(checkpoint, 0);
+        System.out.println("Before the file exists: " + follower.poll() + " lines");
+
+        FileUtils.writeStringToFile(log, "{\"UserID\": 1}\n{\"UserID\": 2}\n{\"UserID\"");
+        System.out.println("Appended 2 lines and a partial line: " + follower.poll() + " lines, position " + follower.getPosition());
+        Files.write(log.toPath(), ": 1}\n".getBytes(), StandardOpenOption.APPEND);
+        System.out.println("Completed the partial line: " + follower.poll() + " lines");
+
+        // Rotate by moving the file away after writing one more line to it
+        Files.write(log.toPath(), "{\"UserID\": 3}\n".getBytes(), StandardOpenOption.APPEND);
+        Files.move(log.toPath(), new File(dir, "requests.log.1").toPath());
+        FileUtils.writeStringToFile(log, "{\"UserID\": 4}\n");
+        System.out.println("Rotated: " + follower.poll() + " lines, position " + follower.getPosition());
+        follower.close();
+        System.out.println(follower.getTotal().getCounts("UserID") + ", buckets " + follower.getBuckets().keySet());
+
+        // A new follower continues from the checkpoint
+        Files.write(log.toPath(), "{\"UserID\": 4}\n".getBytes(), StandardOpenOption.APPEND);
+        try (LogFollower restored = new LogFollower(counter, log.getPath()).setCheckpoint(checkpoint, 0)) {
+            System.out.println("Restored: " + restored.poll() + " lines, " + restored.getTotal().getCounts("UserID"));
+        }
+
+        // Rotate by truncating the file
+        FileUtils.writeStringToFile(log, "{\"UserID\": 5}\n");
+        try (LogFollower restored = new LogFollower(counter, log.getPath()).setCheckpoint(checkpoint, 0)) {
+            System.out.println("Truncated: " + restored.poll() + " lines, " + restored.getTotal().getCounts("UserID"));
+        }
+    }
+
     @Test
     public void combineFiles() throws IOException, URISyntaxException {
         List<String> file1 = IOUtils.readLines(new FileReader(FileUtils.getProjectRoot().resolve("net/ivanhjc/metanote/main/webapp/doc/kyles_notes/files/orderIdCount.txt").toString()));
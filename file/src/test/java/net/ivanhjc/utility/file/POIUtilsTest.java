@@ -10,7 +10,7 @@ import java.io.File;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.text.DecimalFormat;
-import java.util.LinkedHashMap;
+import java.util.*;
 
 /**
  * @author Ivan Huang on 2018/3/21
@@ -89,4 +89,64 @@ public class POIUtilsTest {
         System.out.println(v);
         System.out.println(poiUtils.getCell(1, 0).getNumericCellValue());
     }
+
+    @Test
+    public void read() throws IOException {
+        ZipSecureFile.setMinInflateRatio(0);
+        try (SheetReader reader = POIUtils.read("D:\\projects\\java-utility\\auto\\target\\output_20210213184248.xlsx", "Sheet1")) {
+            while (reader.hasNext()) {
+                SheetReader.SheetRow row = reader.next();
+                StringBuilder sb = new StringBuilder().append(row.getRowNum()).append(": ");
+                for (int i = 0; i < row.getLastCellNum(); i++) {
+                    sb.append(row.getCellValue(i)).append(", ");
+                }
+                System.out.println(sb);
+            }
+        }
+    }
+
+    @Test
+    public void createTableStreaming() throws Exception {
+        // Each owner takes a row for each of the 2 cars, and a sheet holds at most 1,048,576 rows including the header
+        int size = 400000;
+        Iterable<Owner> data = () -> new Iterator<Owner>() {
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < size;
+            }
+
+            @Override
+            public Owner next() {
+                Owner owner = new Owner();
+                owner.id = i;
+                owner.name = "Owner " + i;
+                owner.cars = Arrays.asList(new Car("A" + i, new Date()), new Car("B" + i, new Date()));
+                i++;
+                return owner;
+            }
+        };
+        long time = System.currentTimeMillis();
+        new POIUtils().openStreaming(1000)
+                .createTable("ID:id,Name:name,Cars:cars,Cars.License:cars.license,Cars.Purchased:cars.purchased", Owner.class, data)
+                .saveAs();
+        System.out.println("Time elapsed: " + (System.currentTimeMillis() - time) + "ms");
+    }
+
+    private static class Owner {
+        private Integer id;
+        private String name;
+        private List<Car> cars;
+    }
+
+    private static class Car {
+        private String license;
+        private Date purchased;
+
+        private Car(String license, Date purchased) {
+            this.license = license;
+            this.purchased = purchased;
+        }
+    }
 }
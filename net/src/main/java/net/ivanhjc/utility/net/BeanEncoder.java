@@ -0,0 +1,145 @@
+package net.ivanhjc.utility.net;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encodes the fields of a POJO into name-value pairs for the {@code toURLParams*} methods of {@link HttpUtils}. An
+ * encoder is created once per class, resolving the getter of each declared field into a {@link MethodHandle} and
+ * sorting the fields by name in both orders, so encoding a bean only invokes the getters and appends to a
+ * {@link StringBuilder}.
+ */
+class BeanEncoder {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final Map<Class<?>, BeanEncoder> ENCODERS = new ConcurrentHashMap<>();
+
+    /**
+     * Names of the declared fields in declaration order
+     */
+    private final String[] names;
+    /**
+     * Getters of the fields, each typed as {@code (Object)Object}
+     */
+    private final MethodHandle[] getters;
+    /**
+     * Indices of the fields in ascending order of their names
+     */
+    private final int[] ascOrder;
+    /**
+     * Indices of the fields in descending order of their names
+     */
+    private final int[] descOrder;
+
+    private BeanEncoder(Class<?> clazz) throws NoSuchMethodException, IllegalAccessException {
+        Field[] fields = clazz.getDeclaredFields();
+        names = new String[fields.length];
+        getters = new MethodHandle[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            names[i] = fields[i].getName();
+            Method getter = clazz.getDeclaredMethod("get".concat(StringUtils.capitalize(names[i])));
+            getter.setAccessible(true);
+            getters[i] = LOOKUP.unreflect(getter).asType(GETTER_TYPE);
+        }
+        Integer[] order = new Integer[fields.length];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparing(i -> names[i]));
+        ascOrder = Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+        descOrder = new int[ascOrder.length];
+        for (int i = 0; i < ascOrder.length; i++) {
+            descOrder[i] = ascOrder[ascOrder.length - 1 - i];
+        }
+    }
+
+    /**
+     * Get the encoder of the class, creating it on first use
+     *
+     * @throws IllegalArgumentException if a declared field of the class has no getter
+     */
+    static BeanEncoder of(Class<?> clazz) {
+        BeanEncoder encoder = ENCODERS.get(clazz);
+        if (encoder == null) {
+            encoder = ENCODERS.computeIfAbsent(clazz, c -> {
+                try {
+                    return new BeanEncoder(c);
+                } catch (NoSuchMethodException | IllegalAccessException e) {
+                    throw new IllegalArgumentException("Not a standard POJO: " + c.getName(), e);
+                }
+            });
+        }
+        return encoder;
+    }
+
+    /**
+     * Append all fields as "name1=value1&name2=value2", with null values as empty strings
+     */
+    StringBuilder includeAll(Object bean, StringBuilder builder) {
+        for (int i = 0; i < getters.length; i++) {
+            if (i > 0) {
+                builder.append('&');
+            }
+            Object value = get(i, bean);
+            builder.append(names[i]).append('=').append(value == null ? "" : value.toString());
+        }
+        return builder;
+    }
+
+    /**
+     * Append the fields with non-null values as "name1=value1&name2=value2"
+     */
+    StringBuilder includeNonNull(Object bean, StringBuilder builder) {
+        boolean first = true;
+        for (int i = 0; i < getters.length; i++) {
+            Object value = get(i, bean);
+            if (value == null) {
+                continue;
+            }
+            if (!first) {
+                builder.append('&');
+            }
+            builder.append(names[i]).append('=').append(value.toString());
+            first = false;
+        }
+        return builder;
+    }
+
+    /**
+     * Append the fields with non-blank values as "name1value1name2value2"
+     *
+     * @param asc true for ascending order of names, false for descending order and null for declaration order
+     */
+    StringBuilder excludeSeparatorsAndBlanks(Object bean, Boolean asc, StringBuilder builder) {
+        int[] order = asc == null ? null : asc ? ascOrder : descOrder;
+        for (int k = 0; k < getters.length; k++) {
+            int i = order == null ? k : order[k];
+            Object value = get(i, bean);
+            if (value == null) {
+                continue;
+            }
+            String str = value.toString();
+            if (!str.trim().isEmpty()) {
+                builder.append(names[i]).append(str);
+            }
+        }
+        return builder;
+    }
+
+    private Object get(int i, Object bean) {
+        try {
+            return (Object) getters[i].invokeExact(bean);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
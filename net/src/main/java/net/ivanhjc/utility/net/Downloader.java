@@ -0,0 +1,320 @@
+package net.ivanhjc.utility.net;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Downloads files over HTTP straight into a {@link FileChannel} through a direct buffer. An interrupted transfer is
+ * resumed from where it stopped by an HTTP Range request, and a file larger than twice the minimum range size can be
+ * split into several ranges downloaded in parallel, each written at its own offset of the file. For example:
+ * <pre>
+ * {@code
+ * Downloader.Result result = new Downloader().setConnections(4).download("http://example.com/big.zip", new File("big.zip"));
+ * System.out.println(result.getBytesPerSecond());
+ * }
+ * </pre>
+ * The ranges are only used if the server announces "Accept-Ranges: bytes" and the length of the file.
+ */
+public class Downloader {
+    private static final Logger LOG = LogManager.getLogger();
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private int connections = 1;
+    private long minRangeSize = 1 << 20;
+    private int retries = 3;
+    private int timeout = 1000 * 15;
+    private boolean resume;
+
+    /**
+     * @param connections the maximum number of ranges downloaded in parallel, 1 by default
+     */
+    public Downloader setConnections(int connections) {
+        this.connections = connections;
+        return this;
+    }
+
+    /**
+     * @param minRangeSize the minimum size in bytes of a range downloaded in parallel, 1MB by default
+     */
+    public Downloader setMinRangeSize(long minRangeSize) {
+        this.minRangeSize = minRangeSize;
+        return this;
+    }
+
+    /**
+     * @param retries how many times the transfer of a file or range is resumed after it's interrupted, 3 by default
+     */
+    public Downloader setRetries(int retries) {
+        this.retries = retries;
+        return this;
+    }
+
+    /**
+     * @param timeout the connect and read timeout in milliseconds, 15 seconds by default
+     */
+    public Downloader setTimeout(int timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * @param resume whether to continue from the end of the existing file left by an earlier download, false by
+     *               default, in which case an existing file is overwritten. Only applies to downloads over a single
+     *               connection.
+     */
+    public Downloader setResume(boolean resume) {
+        this.resume = resume;
+        return this;
+    }
+
+    /**
+     * Download a file
+     *
+     * @param url  the URL of the file
+     * @param file where to save the file
+     * @return the statistics of the download
+     * @throws IOException if the server doesn't reply the file or the transfer still fails after retries
+     */
+    public Result download(String url, File file) throws IOException {
+        return download(url, file, probe(url));
+    }
+
+    /**
+     * Download a file into a directory. The name of the file is taken from the "Content-Disposition" header, or from
+     * the URL if there is no such header.
+     *
+     * @param url the URL of the file
+     * @param dir the directory to save the file
+     * @return the statistics of the download
+     * @throws IOException if the server doesn't reply the file or the transfer still fails after retries
+     */
+    public Result downloadToDir(String url, String dir) throws IOException {
+        Probe probe = probe(url);
+        return download(url, new File(dir, probe.fileName), probe);
+    }
+
+    /**
+     * The statistics of a download
+     */
+    public static class Result {
+        private final File file;
+        private final long bytes;
+        private final long nanos;
+
+        Result(File file, long bytes, long nanos) {
+            this.file = file;
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * @return the number of bytes transferred, excluding the bytes of the file already existing before a resumed
+         * download
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getMillis() {
+            return nanos / 1000000;
+        }
+
+        public long getBytesPerSecond() {
+            return nanos == 0 ? 0 : bytes * 1000000000 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d bytes in %dms, %d bytes/s", bytes, getMillis(), getBytesPerSecond());
+        }
+    }
+
+    private Result download(String url, File file, Probe probe) throws IOException {
+        long start = System.nanoTime();
+        long bytes;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (connections > 1 && probe.acceptRanges && probe.length >= minRangeSize * 2) {
+                if (channel.size() > probe.length) {
+                    channel.truncate(probe.length);
+                }
+                bytes = downloadRanges(url, channel, probe.length);
+            } else {
+                long offset = resume ? channel.size() : 0;
+                if (probe.length >= 0 && offset > probe.length) {
+                    offset = 0;
+                }
+                channel.truncate(offset);
+                bytes = downloadRange(url, channel, offset, probe.length - 1, true);
+            }
+        }
+        Result result = new Result(file, bytes, System.nanoTime() - start);
+        LOG.info("Downloaded {} -> {}: {}", url, file.getAbsolutePath(), result);
+        return result;
+    }
+
+    private long downloadRanges(String url, FileChannel channel, long length) throws IOException {
+        int parts = (int) Math.min(connections, length / minRangeSize);
+        long partSize = (length + parts - 1) / parts;
+        ExecutorService executor = Executors.newFixedThreadPool(parts);
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int i = 0; i < parts; i++) {
+                long from = i * partSize;
+                long to = Math.min(length, from + partSize) - 1;
+                futures.add(executor.submit(() -> downloadRange(url, channel, from, to, false)));
+            }
+            long bytes = 0;
+            for (Future<Long> future : futures) {
+                bytes += future.get();
+            }
+            return bytes;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Download interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Download a range of the file and write it at its position of the channel, resuming the transfer from the last
+     * byte written if it's interrupted
+     *
+     * @param from  the first byte of the range
+     * @param to    the last byte of the range, inclusive, or negative if the length of the file is unknown
+     * @param whole whether the range extends to the end of the file, in which case the server may reply the whole
+     *              file instead of the range and the file is downloaded from the beginning
+     * @return the number of bytes transferred
+     */
+    private long downloadRange(String url, FileChannel channel, long from, long to, boolean whole) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        long position = from;
+        long transferred = 0;
+        int attempts = 0;
+        while (to < 0 || position <= to) {
+            HttpURLConnection conn = open(url, "GET");
+            try {
+                if (position > 0 || !whole) {
+                    conn.setRequestProperty("Range", "bytes=" + position + "-" + (to < 0 ? "" : to));
+                }
+                int code = conn.getResponseCode();
+                if (code == HttpURLConnection.HTTP_OK && position > 0) {
+                    if (!whole) {
+                        throw new UnexpectedResponseException("Server doesn't support range requests: " + url);
+                    }
+                    position = 0;
+                    channel.truncate(0);
+                } else if (code == 416 && whole) {
+                    // The file left by an earlier download is already complete
+                    break;
+                } else if (code != HttpURLConnection.HTTP_OK && code != HttpURLConnection.HTTP_PARTIAL) {
+                    throw new UnexpectedResponseException("Server replied HTTP code " + code + ": " + url);
+                }
+
+                try (ReadableByteChannel in = Channels.newChannel(conn.getInputStream())) {
+                    while (in.read(buffer) != -1) {
+                        ((Buffer) buffer).flip();
+                        while (buffer.hasRemaining()) {
+                            int written = channel.write(buffer, position);
+                            position += written;
+                            transferred += written;
+                        }
+                        ((Buffer) buffer).clear();
+                    }
+                }
+                if (to >= 0 && position <= to) {
+                    throw new EOFException("Connection closed at byte " + position + " of range " + from + "-" + to);
+                }
+                break;
+            } catch (UnexpectedResponseException e) {
+                throw e;
+            } catch (IOException e) {
+                if (++attempts > retries) {
+                    throw e;
+                }
+                LOG.warn("Download of {} interrupted at byte {}, resuming ({}/{}): {}", url, position, attempts, retries, e.toString());
+                ((Buffer) buffer).clear();
+            } finally {
+                conn.disconnect();
+            }
+        }
+        return transferred;
+    }
+
+    private Probe probe(String url) throws IOException {
+        Probe probe = new Probe();
+        HttpURLConnection conn = open(url, "HEAD");
+        try {
+            if (conn.getResponseCode() < 400) {
+                probe.length = conn.getContentLengthLong();
+                probe.acceptRanges = "bytes".equalsIgnoreCase(conn.getHeaderField("Accept-Ranges"));
+                String disposition = conn.getHeaderField("Content-Disposition");
+                if (disposition != null && disposition.contains("filename=")) {
+                    probe.fileName = disposition.substring(disposition.indexOf("filename=") + 9).replace("\"", "").trim();
+                }
+            }
+        } finally {
+            conn.disconnect();
+        }
+        if (probe.fileName == null || probe.fileName.isEmpty()) {
+            String path = new URL(url).getPath();
+            probe.fileName = path.substring(path.lastIndexOf('/') + 1);
+        }
+        return probe;
+    }
+
+    private HttpURLConnection open(String url, String method) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        conn.setRequestMethod(method);
+        conn.setConnectTimeout(timeout);
+        conn.setReadTimeout(timeout);
+        return conn;
+    }
+
+    /**
+     * What's known about the file before downloading it
+     */
+    private static class Probe {
+        private long length = -1;
+        private boolean acceptRanges;
+        private String fileName;
+    }
+
+    /**
+     * Thrown when the server replies something other than the file, which isn't worth retrying
+     */
+    private static class UnexpectedResponseException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        UnexpectedResponseException(String message) {
+            super(message);
+        }
+    }
+}
@@ -4,8 +4,8 @@ import com.google.common.net.UrlEscapers;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.config.RequestConfig;
@@ -14,9 +14,11 @@ import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
 import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.DefaultHostnameVerifier;
@@ -28,12 +30,23 @@ import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.apache.http.entity.mime.content.FileBody;
 import org.apache.http.entity.mime.content.StringBody;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.BasicHttpClientConnectionManager;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -45,7 +58,7 @@ import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 import javax.servlet.http.HttpServletRequest;
 import java.io.*;
-import java.lang.reflect.Field;
+import java.net.URI;
 import java.net.URL;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
@@ -57,40 +70,79 @@ import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.cert.X509Certificate;
 import java.util.*;
-
-public class HttpUtils {
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP client utility. {@link #getInstance()} returns a shared instance with default settings, while instances with
+ * their own connection pools and timeouts can be created by {@link Builder}. Each instance holds a pooled blocking client
+ * used by the methods like {@link #get(String)} and {@link #post(String, String)}, and a pooled non-blocking client used
+ * by the methods like {@link #getAsync(String)} and {@link #postJSONAsync(String, String)}, which is created on the
+ * first asynchronous request. An asynchronous request doesn't take a thread while waiting for the response, so
+ * thousands of requests can be in flight with a few I/O threads.
+ */
+public class HttpUtils implements Closeable {
     
     private Logger logger = LogManager.getLogger(this.getClass());
 
-    private final int TIMEOUT = 1000 * 15;
-    private final int RETRIES = 0;
+    private int timeout;
+    private int retries;
+    private int maxTotal;
+    private int defaultMaxPerRoute;
+    private Map<HttpRoute, Integer> maxPerRoute;
+    private long keepAlive;
+    private int ioThreads;
     private CloseableHttpClient httpClient;
-    private static HttpUtils instance = new HttpUtils();
+    private volatile CloseableHttpAsyncClient asyncClient;
+    private static HttpUtils instance = new HttpUtils(new Builder()).closeOnShutdown();
     private static HttpUtils certInstance = null;
 
-    private HttpUtils() {
+    private HttpUtils(Builder builder) {
+        configure(builder);
         httpClient = generatorHttpClient();
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            if (httpClient != null)
-                try {
-                    httpClient.close();
-                } catch (IOException e) {
-                    logger.error(e.getMessage(), e);
-                }
-        }));
     }
 
     private HttpUtils(KeyStore keyStore, String mchId) throws Exception {
+        configure(new Builder());
         httpClient = generatorHttpClient(keyStore, mchId);
+        closeOnShutdown();
+    }
+
+    private void configure(Builder builder) {
+        this.timeout = builder.timeout;
+        this.retries = builder.retries;
+        this.maxTotal = builder.maxTotal;
+        this.defaultMaxPerRoute = builder.defaultMaxPerRoute;
+        this.maxPerRoute = new HashMap<>(builder.maxPerRoute);
+        this.keepAlive = builder.keepAlive;
+        this.ioThreads = builder.ioThreads;
+    }
+
+    private HttpUtils closeOnShutdown() {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            if (httpClient != null) {
-                try {
-                    httpClient.close();
-                } catch (IOException e) {
-                    logger.error(e.getMessage(), e);
-                }
+            try {
+                close();
+            } catch (IOException e) {
+                logger.error(e.getMessage(), e);
             }
         }));
+        return this;
+    }
+
+    /**
+     * Close the clients of this instance along with their connection pools
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (httpClient != null) {
+                httpClient.close();
+            }
+        } finally {
+            if (asyncClient != null) {
+                asyncClient.close();
+            }
+        }
     }
 
     private CloseableHttpClient generatorHttpClient() {
@@ -99,20 +151,56 @@ public class HttpUtils {
                 .register("https", buildSSLConnectionSocketFactory())
                 .build();
         PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(reg);
-        connectionManager.setMaxTotal(500);
-        connectionManager.setDefaultMaxPerRoute(connectionManager.getMaxTotal());
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(defaultMaxPerRoute);
+        maxPerRoute.forEach(connectionManager::setMaxPerRoute);
         HttpClientBuilder httpClientBuilder = HttpClients.custom();
         httpClientBuilder.setConnectionManager(connectionManager);
         SocketConfig.Builder socketConfigBuilder = SocketConfig.custom();
         socketConfigBuilder.setSoKeepAlive(true).setTcpNoDelay(true);
-        socketConfigBuilder.setSoTimeout(TIMEOUT);
+        socketConfigBuilder.setSoTimeout(timeout);
         SocketConfig socketConfig = socketConfigBuilder.build();
         httpClientBuilder.setDefaultSocketConfig(socketConfig);
         connectionManager.setDefaultSocketConfig(socketConfig);
-        httpClientBuilder.setRetryHandler(new DefaultHttpRequestRetryHandler(RETRIES, false));
+        httpClientBuilder.setRetryHandler(new DefaultHttpRequestRetryHandler(retries, false));
+        httpClientBuilder.setKeepAliveStrategy(this::getKeepAliveDuration);
+        httpClientBuilder.evictExpiredConnections().evictIdleConnections(keepAlive, TimeUnit.MILLISECONDS);
         return httpClientBuilder.setSSLHostnameVerifier(NoopHostnameVerifier.INSTANCE).build();
     }
 
+    private CloseableHttpAsyncClient generatorHttpAsyncClient() throws IOReactorException {
+        Registry<SchemeIOSessionStrategy> reg = RegistryBuilder.<SchemeIOSessionStrategy>create()
+                .register("http", NoopIOSessionStrategy.INSTANCE)
+                .register("https", buildSSLIOSessionStrategy())
+                .build();
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(ioThreads)
+                .setConnectTimeout(timeout)
+                .setSoTimeout(timeout)
+                .setSoKeepAlive(true)
+                .setTcpNoDelay(true)
+                .build();
+        PoolingNHttpClientConnectionManager connectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(ioReactorConfig), reg);
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(defaultMaxPerRoute);
+        maxPerRoute.forEach(connectionManager::setMaxPerRoute);
+        CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(this::getKeepAliveDuration)
+                .build();
+        client.start();
+        return client;
+    }
+
+    /**
+     * The keep-alive duration announced by the server in the "Keep-Alive" header, or the configured duration if the
+     * server doesn't announce one
+     */
+    private long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+        long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+        return duration > 0 ? duration : keepAlive;
+    }
+
     /**
      * 获取证书的CloseableHttpClient
      */
@@ -142,6 +230,15 @@ public class HttpUtils {
         return SSLConnectionSocketFactory.getSocketFactory();
     }
 
+    private SSLIOSessionStrategy buildSSLIOSessionStrategy() {
+        try {
+            return new SSLIOSessionStrategy(createIgnoreVerifySSL(), (hostname, session) -> true);
+        } catch (KeyManagementException | NoSuchAlgorithmException e) {
+            logger.error("ssl connection fail", e);
+        }
+        return SSLIOSessionStrategy.getDefaultStrategy();
+    }
+
     private SSLContext createIgnoreVerifySSL() throws NoSuchAlgorithmException, KeyManagementException {
         // 实现一个X509TrustManager接口，用于绕过验证，不用修改里面的方法
         X509TrustManager trustManager = new X509TrustManager() {
@@ -171,11 +268,7 @@ public class HttpUtils {
         HttpEntity entity = null;
         String responseContent = null;
         try {
-            request.setConfig(RequestConfig.custom()
-                    .setSocketTimeout(TIMEOUT)
-                    .setConnectTimeout(TIMEOUT)
-                    .setConnectionRequestTimeout(TIMEOUT)
-                    .build());
+            request.setConfig(getRequestConfig());
             response = httpClient.execute(request);
             if (response != null) {
                 entity = response.getEntity();
@@ -190,6 +283,64 @@ public class HttpUtils {
         }
     }
 
+    /**
+     * Send a request with the asynchronous client, which is created on first use
+     *
+     * @return a future completed with the response string when the response is received, or completed exceptionally
+     * if the request fails or the response can't be read
+     */
+    private CompletableFuture<String> sendAsync(HttpRequestBase request) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        try {
+            request.setConfig(getRequestConfig());
+            getAsyncClient().execute(request, new FutureCallback<HttpResponse>() {
+                @Override
+                public void completed(HttpResponse response) {
+                    try {
+                        HttpEntity entity = response.getEntity();
+                        future.complete(entity == null ? null : EntityUtils.toString(entity, StandardCharsets.UTF_8));
+                    } catch (IOException | RuntimeException e) {
+                        future.completeExceptionally(e);
+                    }
+                }
+
+                @Override
+                public void failed(Exception e) {
+                    future.completeExceptionally(e);
+                }
+
+                @Override
+                public void cancelled() {
+                    future.cancel(false);
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private CloseableHttpAsyncClient getAsyncClient() throws IOReactorException {
+        CloseableHttpAsyncClient client = asyncClient;
+        if (client == null) {
+            synchronized (this) {
+                client = asyncClient;
+                if (client == null) {
+                    client = asyncClient = generatorHttpAsyncClient();
+                }
+            }
+        }
+        return client;
+    }
+
+    private RequestConfig getRequestConfig() {
+        return RequestConfig.custom()
+                .setSocketTimeout(timeout)
+                .setConnectTimeout(timeout)
+                .setConnectionRequestTimeout(timeout)
+                .build();
+    }
+
     public static HttpUtils getInstance() {
         return instance;
     }
@@ -290,6 +441,68 @@ public class HttpUtils {
         return send(httpPost);
     }
 
+    /**
+     * Send a GET request asynchronously
+     *
+     * @param url the request url with parameters
+     * @return a future of the response string, see {@link #sendAsync(HttpRequestBase)}
+     */
+    public CompletableFuture<String> getAsync(String url) {
+        return sendAsync(new HttpGet(url));
+    }
+
+    /**
+     * Send a GET request asynchronously
+     *
+     * @param url    the host address
+     * @param params key-value pairs
+     * @return a future of the response string, see {@link #sendAsync(HttpRequestBase)}
+     */
+    public CompletableFuture<String> getAsync(String url, String params) {
+        return sendAsync(new HttpGet(url + '?' + params));
+    }
+
+    /**
+     * Send a GET request asynchronously
+     *
+     * @param url    the host address
+     * @param params key-value pairs
+     * @return a future of the response string, see {@link #sendAsync(HttpRequestBase)}
+     */
+    public CompletableFuture<String> getAsync(String url, Map<String, Object> params) {
+        return sendAsync(new HttpGet(url + '?' + getQueryString(params)));
+    }
+
+    /**
+     * Send a POST request with parameters asynchronously
+     *
+     * @param url    host address
+     * @param params parameters in the form key1=value1&key2=value2
+     * @return a future of the response string, see {@link #sendAsync(HttpRequestBase)}
+     */
+    public CompletableFuture<String> postAsync(String url, String params) {
+        HttpPost httpPost = new HttpPost(url);
+        StringEntity stringEntity = new StringEntity(params, StandardCharsets.UTF_8.name());
+        stringEntity.setContentType("application/x-www-form-urlencoded");
+        httpPost.setEntity(stringEntity);
+        return sendAsync(httpPost);
+    }
+
+    /**
+     * Send a POST request with parameters in JSON format asynchronously
+     *
+     * @param url    host address
+     * @param params parameters in JSON format
+     * @return a future of the response string, see {@link #sendAsync(HttpRequestBase)}
+     */
+    public CompletableFuture<String> postJSONAsync(String url, String params) {
+        HttpPost httpPost = new HttpPost(url);
+        StringEntity stringEntity = new StringEntity(params, StandardCharsets.UTF_8);
+        stringEntity.setContentType("application/json;charset=UTF-8");
+        httpPost.setEntity(stringEntity);
+        return sendAsync(httpPost);
+    }
+
     /**
      * Send a POST request with parameters in XML format
      *
@@ -350,11 +563,7 @@ public class HttpUtils {
      */
     public String postCert(String apiUrl, String requestXml) throws IOException {
         HttpPost httpPost = new HttpPost(apiUrl);
-        httpPost.setConfig(RequestConfig.custom()
-                .setSocketTimeout(TIMEOUT)
-                .setConnectTimeout(TIMEOUT)
-                .setConnectionRequestTimeout(TIMEOUT)
-                .build());
+        httpPost.setConfig(getRequestConfig());
         httpPost.addHeader("Connection", "keep-alive");
         httpPost.addHeader("Accept", "*/*");
         httpPost.addHeader("Content-Type", "application/x-www-form-urlencoded; charset=UTF-8");
@@ -369,16 +578,14 @@ public class HttpUtils {
         return result;
     }
 
-    public void downloadFile(String url, File file) throws IOException {
-        try (BufferedInputStream in = new BufferedInputStream(new URL(url).openStream());
-             FileOutputStream fileOutputStream = new FileOutputStream(file)) {
-            byte[] dataBuffer = new byte[1024];
-            int bytesRead;
-            while ((bytesRead = in.read(dataBuffer, 0, 1024)) != -1) {
-                fileOutputStream.write(dataBuffer, 0, bytesRead);
-            }
-            fileOutputStream.flush();
-        }
+    /**
+     * Download a file with the timeout and retries of this instance. See {@link Downloader} for resumed and parallel
+     * downloads.
+     *
+     * @return the statistics of the download
+     */
+    public Downloader.Result downloadFile(String url, File file) throws IOException {
+        return new Downloader().setTimeout(timeout).setRetries(retries).download(url, file);
     }
 
     public static <T> String getQueryString(Map<String, T> map) {
@@ -409,28 +616,44 @@ public class HttpUtils {
         return builder.toString();
     }
 
+    /**
+     * Converts a POJO object to a string of key-value pairs of all its fields, with null values as empty strings
+     *
+     * @param bean the POJO object, every declared field of which must have a getter
+     * @return the converted string in the form key1=value1&key2=value2
+     */
     public static String toURLParamsIncludeAll(Object bean) throws Exception {
-        Class clazz = bean.getClass();
-        Field[] fields = clazz.getDeclaredFields();
-        StringBuilder nameValuePairs = new StringBuilder();
-        for (Field field : fields) {
-            Object value = clazz.getDeclaredMethod("get".concat(StringUtils.capitalize(field.getName()))).invoke(bean);
-            nameValuePairs.append(field.getName()).append("=").append(value == null ? "" : value.toString()).append("&");
-        }
-        return nameValuePairs.deleteCharAt(nameValuePairs.length() - 1).toString();
+        return toURLParamsIncludeAll(bean, new StringBuilder()).toString();
     }
 
+    /**
+     * Same as {@link #toURLParamsIncludeAll(Object)} but appends the pairs to the given builder, which can be reused
+     * across calls
+     *
+     * @return the builder
+     */
+    public static StringBuilder toURLParamsIncludeAll(Object bean, StringBuilder builder) {
+        return BeanEncoder.of(bean.getClass()).includeAll(bean, builder);
+    }
+
+    /**
+     * Converts a POJO object to a string of key-value pairs of its fields whose values are not null
+     *
+     * @param bean the POJO object, every declared field of which must have a getter
+     * @return the converted string in the form key1=value1&key2=value2
+     */
     public static String toURLParamsIncludeNonNull(Object bean) throws Exception {
-        Class clazz = bean.getClass();
-        Field[] fields = clazz.getDeclaredFields();
-        StringBuilder nameValuePairs = new StringBuilder();
-        for (Field field : fields) {
-            Object value = clazz.getDeclaredMethod("get".concat(StringUtils.capitalize(field.getName()))).invoke(bean);
-            if (value == null)
-                continue;
-            nameValuePairs.append(field.getName()).append("=").append(value.toString()).append("&");
-        }
-        return nameValuePairs.deleteCharAt(nameValuePairs.length() - 1).toString();
+        return toURLParamsIncludeNonNull(bean, new StringBuilder()).toString();
+    }
+
+    /**
+     * Same as {@link #toURLParamsIncludeNonNull(Object)} but appends the pairs to the given builder, which can be
+     * reused across calls
+     *
+     * @return the builder
+     */
+    public static StringBuilder toURLParamsIncludeNonNull(Object bean, StringBuilder builder) {
+        return BeanEncoder.of(bean.getClass()).includeNonNull(bean, builder);
     }
 
     /**
@@ -442,22 +665,17 @@ public class HttpUtils {
      * @throws Exception if the object is not in a standard POJO format
      */
     public static String toURLParamsExcludeSeparatorsAndBlanks(Object bean, Boolean asc) throws Exception {
-        Class clazz = bean.getClass();
-        Field[] fields = clazz.getDeclaredFields();
-        if (asc != null) {
-            if (asc)
-                Arrays.sort(fields, Comparator.comparing(Field::getName));
-            else
-                Arrays.sort(fields, (o1, o2) -> o2.getName().compareTo(o1.getName()));
-        }
-        StringBuilder nameValuePairs = new StringBuilder();
-        for (Field field : fields) {
-            Object value = clazz.getDeclaredMethod("get".concat(StringUtils.capitalize(field.getName()))).invoke(bean);
-            if (value == null || value.toString().trim().isEmpty())
-                continue;
-            nameValuePairs.append(field.getName()).append(value.toString());
-        }
-        return nameValuePairs.toString();
+        return toURLParamsExcludeSeparatorsAndBlanks(bean, asc, new StringBuilder()).toString();
+    }
+
+    /**
+     * Same as {@link #toURLParamsExcludeSeparatorsAndBlanks(Object, Boolean)} but appends the pairs to the given
+     * builder, which can be reused across calls, e.g. when signing requests
+     *
+     * @return the builder
+     */
+    public static StringBuilder toURLParamsExcludeSeparatorsAndBlanks(Object bean, Boolean asc, StringBuilder builder) {
+        return BeanEncoder.of(bean.getClass()).excludeSeparatorsAndBlanks(bean, asc, builder);
     }
 
     /**
@@ -541,4 +759,88 @@ public class HttpUtils {
             e.printStackTrace();
         }
     }
+
+    /**
+     * Builder of {@link HttpUtils} instances with their own connection pools. The defaults are the same as those of
+     * {@link HttpUtils#getInstance()}.
+     */
+    public static class Builder {
+        private int timeout = 1000 * 15;
+        private int retries = 0;
+        private int maxTotal = 500;
+        private int defaultMaxPerRoute = 500;
+        private Map<HttpRoute, Integer> maxPerRoute = new HashMap<>();
+        private long keepAlive = 1000 * 60;
+        private int ioThreads = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * @param timeout the connect, socket and connection request timeout in milliseconds, 15 seconds by default
+         */
+        public Builder setTimeout(int timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * @param retries how many times a request is retried if it fails with an I/O error, 0 by default
+         */
+        public Builder setRetries(int retries) {
+            this.retries = retries;
+            return this;
+        }
+
+        /**
+         * @param maxTotal the maximum number of connections in the pool, 500 by default
+         */
+        public Builder setMaxTotal(int maxTotal) {
+            this.maxTotal = maxTotal;
+            return this;
+        }
+
+        /**
+         * @param defaultMaxPerRoute the maximum number of connections to a route (host), 500 by default
+         */
+        public Builder setDefaultMaxPerRoute(int defaultMaxPerRoute) {
+            this.defaultMaxPerRoute = defaultMaxPerRoute;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of connections to a specific host, which overrides {@link #setDefaultMaxPerRoute(int)}
+         *
+         * @param url a url of the host, only the scheme, host and port of which are used, e.g. "https://example.com"
+         * @param max the maximum number of connections
+         */
+        public Builder setMaxPerRoute(String url, int max) {
+            URI uri = URI.create(url);
+            String scheme = uri.getScheme() == null ? "http" : uri.getScheme().toLowerCase();
+            int port = uri.getPort() > 0 ? uri.getPort() : "https".equals(scheme) ? 443 : 80;
+            this.maxPerRoute.put(new HttpRoute(new HttpHost(uri.getHost(), port, scheme), null, "https".equals(scheme)), max);
+            return this;
+        }
+
+        /**
+         * @param keepAlive how long in milliseconds an idle connection is kept alive for reuse if the server doesn't
+         *                  specify it in the "Keep-Alive" header, 60 seconds by default
+         */
+        public Builder setKeepAlive(long keepAlive) {
+            this.keepAlive = keepAlive;
+            return this;
+        }
+
+        /**
+         * @param ioThreads the number of I/O threads of the asynchronous client, the number of processors by default
+         */
+        public Builder setIoThreads(int ioThreads) {
+            this.ioThreads = ioThreads;
+            return this;
+        }
+
+        /**
+         * Build an instance, which should be closed by {@link HttpUtils#close()} when it's no longer used
+         */
+        public HttpUtils build() {
+            return new HttpUtils(this);
+        }
+    }
 }
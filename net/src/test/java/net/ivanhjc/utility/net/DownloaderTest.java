@@ -0,0 +1,95 @@
+package net.ivanhjc.utility.net;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DownloaderTest {
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Start a stub server serving the content at "/file", which supports range requests and closes the connection
+     * in the middle of the first n responses
+     */
+    private static HttpServer serve(byte[] content, int failures) throws IOException {
+        AtomicInteger failuresLeft = new AtomicInteger(failures);
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/file", exchange -> {
+            exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            int from = 0, to = content.length - 1;
+            if (range != null) {
+                String[] bounds = range.substring("bytes=".length()).split("-", -1);
+                from = Integer.parseInt(bounds[0]);
+                if (!bounds[1].isEmpty()) {
+                    to = Integer.parseInt(bounds[1]);
+                }
+                if (from >= content.length) {
+                    exchange.sendResponseHeaders(416, -1);
+                    exchange.close();
+                    return;
+                }
+                exchange.getResponseHeaders().add("Content-Range", "bytes " + from + "-" + to + "/" + content.length);
+            }
+            int length = to - from + 1;
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().add("Content-Length", String.valueOf(length));
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+                return;
+            }
+            exchange.sendResponseHeaders(range == null ? 200 : 206, length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                if (failuresLeft.getAndDecrement() > 0) {
+                    out.write(content, from, length / 2);
+                    out.flush();
+                    throw new IOException("Simulated interruption");
+                }
+                out.write(content, from, length);
+            }
+        });
+        ExecutorService executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r);
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+        return server;
+    }
+
+    @Test
+    public void download() throws IOException {
+        byte[] content = new byte[20 * 1024 * 1024];
+        new Random(1).nextBytes(content);
+        HttpServer server = serve(content, 2);
+        try {
+            String url = "http://localhost:" + server.getAddress().getPort() + "/file";
+            File file = File.createTempFile("download", ".bin");
+            LOG.info("Single: {}", new Downloader().download(url, file));
+            LOG.info("Equal: {}", Arrays.equals(content, Files.readAllBytes(file.toPath())));
+
+            LOG.info("Parallel: {}", new Downloader().setConnections(4).download(url, file));
+            LOG.info("Equal: {}", Arrays.equals(content, Files.readAllBytes(file.toPath())));
+
+            Files.write(file.toPath(), Arrays.copyOf(content, 1000));
+            LOG.info("Resumed: {}", new Downloader().setResume(true).download(url, file));
+            LOG.info("Equal: {}", Arrays.equals(content, Files.readAllBytes(file.toPath())));
+            file.delete();
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpServer;
 import net.ivanhjc.utility.net.model.DingDingRobotReq;
 import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.LogManager;
@@ -12,14 +13,19 @@ import org.apache.tomcat.util.http.fileupload.disk.DiskFileItem;
 import org.junit.Test;
 
 import java.io.*;
+import java.net.InetSocketAddress;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * @author Administrator on 2018/9/28 16:55.
@@ -152,4 +158,37 @@ public class HttpUtilsTest {
             e.printStackTrace();
         }
     }
+
+    @Test
+    public void getAsync() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/echo", exchange -> {
+            byte[] body = exchange.getRequestURI().getQuery().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        server.setExecutor(executor);
+        server.start();
+        String url = "http://localhost:" + server.getAddress().getPort() + "/echo";
+        try (HttpUtils httpUtils = new HttpUtils.Builder()
+                .setMaxTotal(100)
+                .setMaxPerRoute(url, 50)
+                .setTimeout(5000)
+                .setIoThreads(2)
+                .build()) {
+            long time = System.currentTimeMillis();
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                futures.add(httpUtils.getAsync(url, "i=" + i));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            logger.info("{} requests done in {}ms, last response: {}", futures.size(), System.currentTimeMillis() - time, futures.get(futures.size() - 1).join());
+        } finally {
+            server.stop(0);
+            executor.shutdown();
+        }
+    }
 }